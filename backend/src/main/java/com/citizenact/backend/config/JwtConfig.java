@@ -0,0 +1,18 @@
+package com.citizenact.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "jwt")
+public class JwtConfig {
+    // Clé HMAC encodée en Base64 (256 bits minimum)
+    private String secret;
+    // Durée de validité des jetons, en secondes
+    private long expiration = 86400;
+
+    public String getSecret() { return secret; }
+    public void setSecret(String secret) { this.secret = secret; }
+    public long getExpiration() { return expiration; }
+    public void setExpiration(long expiration) { this.expiration = expiration; }
+}
@@ -1,27 +1,41 @@
 package com.citizenact.backend.config;
 
+import com.citizenact.backend.dto.CursorPage;
+import com.citizenact.backend.security.AuthThrottle;
+import com.citizenact.backend.security.BasicAuthThrottleFilter;
+import com.citizenact.backend.security.BearerTokenFilter;
+import com.citizenact.backend.security.CachingPasswordEncoder;
+import com.citizenact.backend.security.TokenService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.NoOpPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, TokenService tokenService,
+                                                   AuthThrottle authThrottle) throws Exception {
         http
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .csrf(csrf -> csrf.disable())
@@ -35,17 +49,29 @@ public class SecurityConfig {
                 .requestMatchers("/api/signalements").hasRole("USER") // POST pour création
                 .requestMatchers("/api/signalements").hasAnyRole("USER", "AGENT") // GET liste complète
                 .requestMatchers("/api/signalements/user/**").hasAnyRole("USER", "AGENT") // GET par utilisateur
-                .requestMatchers("/api/notifications").hasRole("USER")
+                // Agents notifiés des nouveaux signalements : lecture, marquage et suppression seulement
+                .requestMatchers(HttpMethod.GET, "/api/notifications", "/api/notifications/**").hasAnyRole("USER", "AGENT")
+                .requestMatchers(HttpMethod.PUT, "/api/notifications/**").hasAnyRole("USER", "AGENT")
+                .requestMatchers(HttpMethod.DELETE, "/api/notifications/**").hasAnyRole("USER", "AGENT")
+                .requestMatchers("/api/notifications").hasRole("USER") // POST pour création
                 .requestMatchers("/api/notifications/**").hasRole("USER")
+                .requestMatchers("/ws/notifications").hasAnyRole("USER", "AGENT") // Canal WebSocket des notifications
                 .requestMatchers("/api/arrondissements").hasRole("USER") // Ajout pour arrondissements
                 .requestMatchers("/api/arrondissements/**").hasRole("USER") // Couvre les sous-endpoints
                 // Endpoints AGENT
                 .requestMatchers("/api/signalements/*/traitement-status").hasRole("AGENT") // Mise à jour statut
                 // Endpoints ADMIN
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                // Supervision
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 // Tout le reste nécessite une authentification
                 .anyRequest().authenticated()
             )
+            // Jeton signé émis par /api/auth/login, vérifié sans accès à la base
+            .addFilterBefore(new BearerTokenFilter(tokenService), BasicAuthenticationFilter.class)
+            // HTTP Basic vérifie le mot de passe à chaque appel : mêmes quotas que /api/auth/login
+            .addFilterBefore(new BasicAuthThrottleFilter(authThrottle), BasicAuthenticationFilter.class)
             .httpBasic(httpBasic -> httpBasic.realmName("CitizenAct"));
 
         return http.build();
@@ -57,8 +83,15 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return NoOpPasswordEncoder.getInstance(); // Mots de passe en clair pour les tests
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${citizenact.security.bcrypt-strength:10}") int strength,
+                                           @Value("${citizenact.security.password-cache.ttl-seconds:300}") long ttlSeconds,
+                                           @Value("${citizenact.security.password-cache.max-size:10000}") int maxSize) {
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt",
+                Map.of("bcrypt", new BCryptPasswordEncoder(strength)));
+        // Anciens mots de passe en clair (sans préfixe {id}) : acceptés, puis rehachés à la connexion
+        encoder.setDefaultPasswordEncoderForMatches(NoOpPasswordEncoder.getInstance());
+        return new CachingPasswordEncoder(encoder, ttlSeconds, maxSize, meterRegistry);
     }
 
     @Bean
@@ -67,6 +100,7 @@ public class SecurityConfig {
         configuration.setAllowedOrigins(Arrays.asList("*")); // Allow all origins
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Username"));
+        configuration.setExposedHeaders(Arrays.asList(CursorPage.NEXT_CURSOR_HEADER)); // Curseur de pagination
         configuration.setAllowCredentials(false); // Disable credentials for wildcard origin
         configuration.setMaxAge(3600L); // Cache preflight response for 1 hour
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
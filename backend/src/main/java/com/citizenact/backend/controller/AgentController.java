@@ -1,14 +1,18 @@
 package com.citizenact.backend.controller;
 
 import com.citizenact.backend.dto.ArrondissementDTO;
+import com.citizenact.backend.dto.CursorPage;
 import com.citizenact.backend.dto.SignalementDTO;
 import com.citizenact.backend.dto.UserDTO;
 import com.citizenact.backend.service.ArrondissementService;
 import com.citizenact.backend.service.SignalementService;
+import com.citizenact.backend.service.SignalementStreamService;
 import com.citizenact.backend.service.UserService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -20,11 +24,14 @@ public class AgentController {
     private final ArrondissementService arrondissementService;
     private final UserService userService;
     private final SignalementService signalementService;
+    private final SignalementStreamService signalementStreamService;
 
-    public AgentController(ArrondissementService arrondissementService, UserService userService, SignalementService signalementService) {
+    public AgentController(ArrondissementService arrondissementService, UserService userService, SignalementService signalementService,
+                           SignalementStreamService signalementStreamService) {
         this.arrondissementService = arrondissementService;
         this.userService = userService;
         this.signalementService = signalementService;
+        this.signalementStreamService = signalementStreamService;
     }
 
     @GetMapping("/arrondissement/{id}")
@@ -38,8 +45,16 @@ public class AgentController {
     }
 
     @GetMapping("/signalements/arrondissement/{id}")
-    public ResponseEntity<List<SignalementDTO>> getSignalementsByArrondissement(@PathVariable Long id) {
-        return ResponseEntity.ok(signalementService.getSignalementsByArrondissementId(id));
+    public ResponseEntity<List<SignalementDTO>> getSignalementsByArrondissement(@PathVariable Long id,
+                                                                                @RequestParam(required = false) String cursor,
+                                                                                @RequestParam(required = false) Integer limit) {
+        CursorPage<SignalementDTO> page = signalementService.getSignalementsByArrondissementId(id, cursor, limit);
+        return ResponseEntity.ok().headers(page.toHeaders()).body(page.getItems());
+    }
+
+    @GetMapping(value = "/signalements/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamArrondissementEvents() {
+        return signalementStreamService.openArrondissementStream();
     }
 
     @PutMapping("/signalements/{id}/traitement-status")
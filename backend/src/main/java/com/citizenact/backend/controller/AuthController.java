@@ -2,7 +2,9 @@ package com.citizenact.backend.controller;
 
 import com.citizenact.backend.dto.UserDTO;
 import com.citizenact.backend.dto.UserRequest;
+import com.citizenact.backend.security.AuthThrottle;
 import com.citizenact.backend.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -11,18 +13,22 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final AuthService authService;
+    private final AuthThrottle authThrottle;
 
-    public AuthController(AuthService authService) {
+    public AuthController(AuthService authService, AuthThrottle authThrottle) {
         this.authService = authService;
+        this.authThrottle = authThrottle;
     }
 
     @PostMapping("/login")
-    public ResponseEntity<UserDTO> login(@RequestBody UserRequest userRequest) {
+    public ResponseEntity<UserDTO> login(@RequestBody UserRequest userRequest, HttpServletRequest request) {
+        authThrottle.acquire(request.getRemoteAddr(), userRequest.getUsername());
         return ResponseEntity.ok(authService.login(userRequest));
     }
 
     @PostMapping("/register")
-    public ResponseEntity<UserDTO> register(@RequestBody UserRequest userRequest) {
+    public ResponseEntity<UserDTO> register(@RequestBody UserRequest userRequest, HttpServletRequest request) {
+        authThrottle.acquire(request.getRemoteAddr(), userRequest.getUsername());
         return ResponseEntity.ok(authService.register(userRequest));
     }
 }
\ No newline at end of file
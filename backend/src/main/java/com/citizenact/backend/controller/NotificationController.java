@@ -1,5 +1,6 @@
 package com.citizenact.backend.controller;
 
+import com.citizenact.backend.dto.CursorPage;
 import com.citizenact.backend.dto.NotificationDTO;
 import com.citizenact.backend.service.NotificationService;
 import org.springframework.http.HttpStatus;
@@ -7,6 +8,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/notifications")
@@ -20,23 +22,44 @@ public class NotificationController {
 
     @GetMapping
     public ResponseEntity<List<NotificationDTO>> getUserNotifications(
-            @RequestHeader("X-Username") String username) {
-        return ResponseEntity.ok(notificationService.getUserNotifications(username));
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean unreadOnly) {
+        CursorPage<NotificationDTO> page = notificationService.getUserNotifications(cursor, limit, unreadOnly);
+        return ResponseEntity.ok().headers(page.toHeaders()).body(page.getItems());
+    }
+
+    @GetMapping("/unread-count")
+    public ResponseEntity<Map<String, Long>> getUnreadCount() {
+        return ResponseEntity.ok(Map.of("unreadCount", notificationService.getUnreadCount()));
     }
 
     @PutMapping("/{id}/status")
-    public ResponseEntity<NotificationDTO> markNotificationAsRead(
-            @PathVariable Long id, @RequestHeader("X-Username") String username) {
-        return ResponseEntity.ok(notificationService.markNotificationAsRead(id, username));
+    public ResponseEntity<NotificationDTO> markNotificationAsRead(@PathVariable Long id) {
+        return ResponseEntity.ok(notificationService.markNotificationAsRead(id));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteNotification(
-            @PathVariable Long id, @RequestHeader("X-Username") String username) {
-        notificationService.deleteNotification(id, username);
+    public ResponseEntity<Void> deleteNotification(@PathVariable Long id) {
+        notificationService.deleteNotification(id);
         return ResponseEntity.ok().build();
     }
 
+    @PutMapping("/read-all")
+    public ResponseEntity<Map<String, Integer>> markAllAsRead() {
+        return ResponseEntity.ok(Map.of("updated", notificationService.markAllAsRead()));
+    }
+
+    @PutMapping("/read")
+    public ResponseEntity<Map<String, Integer>> markAsRead(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(Map.of("updated", notificationService.markAsRead(ids)));
+    }
+
+    @DeleteMapping("/read")
+    public ResponseEntity<Map<String, Integer>> deleteAllRead() {
+        return ResponseEntity.ok(Map.of("deleted", notificationService.deleteAllRead()));
+    }
+
     @PostMapping
     public ResponseEntity<Void> createNotification(
             @RequestHeader("X-Username") String username,
@@ -0,0 +1,22 @@
+package com.citizenact.backend.controller;
+
+import com.citizenact.backend.dto.SyncDTO;
+import com.citizenact.backend.service.SyncService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/sync")
+public class SyncController {
+
+    private final SyncService syncService;
+
+    public SyncController(SyncService syncService) {
+        this.syncService = syncService;
+    }
+
+    @GetMapping
+    public ResponseEntity<SyncDTO> sync(@RequestParam(required = false) String since) {
+        return ResponseEntity.ok(syncService.sync(since));
+    }
+}
@@ -0,0 +1,43 @@
+package com.citizenact.backend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pushed to the author of a signalement and to the agents of its arrondissement
+ * when its traitement status changes.
+ */
+public class SignalementEventDTO {
+    private Long signalementId;
+    private Long userId;
+    private Long arrondissementId;
+    private String title;
+    private String traitementStatus;
+    private LocalDateTime updatedAt;
+
+    public SignalementEventDTO() {
+    }
+
+    public SignalementEventDTO(Long signalementId, Long userId, Long arrondissementId, String title,
+                               String traitementStatus, LocalDateTime updatedAt) {
+        this.signalementId = signalementId;
+        this.userId = userId;
+        this.arrondissementId = arrondissementId;
+        this.title = title;
+        this.traitementStatus = traitementStatus;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters and Setters
+    public Long getSignalementId() { return signalementId; }
+    public void setSignalementId(Long signalementId) { this.signalementId = signalementId; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public Long getArrondissementId() { return arrondissementId; }
+    public void setArrondissementId(Long arrondissementId) { this.arrondissementId = arrondissementId; }
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    public String getTraitementStatus() { return traitementStatus; }
+    public void setTraitementStatus(String traitementStatus) { this.traitementStatus = traitementStatus; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,31 @@
+package com.citizenact.backend.dto;
+
+import java.nio.file.Path;
+
+/**
+ * Image of a signalement: either a file of the blob store, or the decoded bytes
+ * of a legacy row that still keeps its photo in image_base64.
+ */
+public class SignalementImage {
+    private final Path file;
+    private final byte[] data;
+    private final String contentType;
+
+    private SignalementImage(Path file, byte[] data, String contentType) {
+        this.file = file;
+        this.data = data;
+        this.contentType = contentType;
+    }
+
+    public static SignalementImage ofFile(Path file, String contentType) {
+        return new SignalementImage(file, null, contentType);
+    }
+
+    public static SignalementImage ofBytes(byte[] data, String contentType) {
+        return new SignalementImage(null, data, contentType);
+    }
+
+    public Path getFile() { return file; }
+    public byte[] getData() { return data; }
+    public String getContentType() { return contentType; }
+}
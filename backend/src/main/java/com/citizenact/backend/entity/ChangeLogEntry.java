@@ -0,0 +1,74 @@
+package com.citizenact.backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One row per change of a signalement or a notification. Readers follow the log in
+ * (tx_id, id) order: tx_id is the id of the writing transaction, set by the database, so
+ * the committed prefix of the log can be read from the transaction snapshot.
+ */
+@Entity
+@Table(name = "change_log", indexes = {
+        @Index(name = "idx_change_log_tx_id_id", columnList = "tx_id, id")
+})
+public class ChangeLogEntry {
+    public static final String SIGNALEMENT = "SIGNALEMENT";
+    public static final String NOTIFICATION = "NOTIFICATION";
+    public static final String UPSERT = "UPSERT";
+    public static final String DELETE = "DELETE";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "entity_type", nullable = false, length = 16)
+    private String entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "operation", nullable = false, length = 8)
+    private String operation;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "arrondissement_id")
+    private Long arrondissementId;
+
+    @Column(name = "tx_id", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "bigint not null default (pg_current_xact_id()::text::bigint)")
+    private Long txId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public ChangeLogEntry() {
+    }
+
+    public ChangeLogEntry(String entityType, Long entityId, String operation, Long userId, Long arrondissementId) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.operation = operation;
+        this.userId = userId;
+        this.arrondissementId = arrondissementId;
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getEntityType() { return entityType; }
+    public void setEntityType(String entityType) { this.entityType = entityType; }
+    public Long getEntityId() { return entityId; }
+    public void setEntityId(Long entityId) { this.entityId = entityId; }
+    public String getOperation() { return operation; }
+    public void setOperation(String operation) { this.operation = operation; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public Long getArrondissementId() { return arrondissementId; }
+    public void setArrondissementId(Long arrondissementId) { this.arrondissementId = arrondissementId; }
+    public Long getTxId() { return txId; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,31 @@
+package com.citizenact.backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Single row recording how far the retention job has pruned the change log, shared by every
+ * instance. Change log positions at or below it can no longer be served incrementally.
+ */
+@Entity
+@Table(name = "change_log_pruning")
+public class ChangeLogPruning {
+    public static final long ROW_ID = 1;
+
+    @Id
+    private Long id;
+
+    @Column(name = "pruned_through_tx_id", nullable = false)
+    private Long prunedThroughTxId;
+
+    @Column(name = "pruned_at", nullable = false)
+    private LocalDateTime prunedAt;
+
+    // Getters et Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getPrunedThroughTxId() { return prunedThroughTxId; }
+    public void setPrunedThroughTxId(Long prunedThroughTxId) { this.prunedThroughTxId = prunedThroughTxId; }
+    public LocalDateTime getPrunedAt() { return prunedAt; }
+    public void setPrunedAt(LocalDateTime prunedAt) { this.prunedAt = prunedAt; }
+}
@@ -0,0 +1,75 @@
+package com.citizenact.backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Side effects of a signalement change, written in the same transaction as the change and
+ * carried out later by the outbox relay.
+ */
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+    public static final String SIGNALEMENT_CREATED = "SIGNALEMENT_CREATED";
+    public static final String TRAITEMENT_STATUS_CHANGED = "TRAITEMENT_STATUS_CHANGED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_type", nullable = false, length = 32)
+    private String eventType;
+
+    @Column(name = "signalement_id", nullable = false)
+    private Long signalementId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "arrondissement_id", nullable = false)
+    private Long arrondissementId;
+
+    @Column(name = "title")
+    private String title;
+
+    @Column(name = "traitement_status")
+    private String traitementStatus;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts = 0;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public OutboxEvent() {
+    }
+
+    public OutboxEvent(String eventType, Signalement signalement) {
+        this.eventType = eventType;
+        this.signalementId = signalement.getId();
+        this.userId = signalement.getUserId();
+        this.arrondissementId = signalement.getArrondissementId();
+        this.title = signalement.getTitle();
+        this.traitementStatus = signalement.getTraitementStatus();
+    }
+
+    // Getters et Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getEventType() { return eventType; }
+    public void setEventType(String eventType) { this.eventType = eventType; }
+    public Long getSignalementId() { return signalementId; }
+    public void setSignalementId(Long signalementId) { this.signalementId = signalementId; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public Long getArrondissementId() { return arrondissementId; }
+    public void setArrondissementId(Long arrondissementId) { this.arrondissementId = arrondissementId; }
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    public String getTraitementStatus() { return traitementStatus; }
+    public void setTraitementStatus(String traitementStatus) { this.traitementStatus = traitementStatus; }
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -1,10 +1,16 @@
 package com.citizenact.backend.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
+
 import java.time.LocalDateTime;
+import java.util.Objects;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_written_tx_id", columnList = "written_tx_id")
+})
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -31,11 +37,43 @@ public class User {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    // Incrémenté pour révoquer les jetons déjà émis (blocage, changement de mot de passe, de rôle ou d'arrondissement)
+    @Column(name = "token_version", nullable = false, columnDefinition = "integer default 0")
+    private int tokenVersion = 0;
+
+    // Transaction de la dernière écriture, posée par la base : les autres instances relisent les
+    // versions de jeton dans l'ordre des commits, sans dépendre de leur horloge
+    @Generated(event = {EventType.INSERT, EventType.UPDATE}, sql = "pg_current_xact_id()::text::bigint")
+    @Column(name = "written_tx_id")
+    private Long writtenTxId;
+
+    // Valeurs lues en base, les jetons émis embarquent le rôle et l'arrondissement
+    @Transient
+    private String loadedRole;
+
+    @Transient
+    private Long loadedArrondissementId;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
     }
 
+    @PostLoad
+    protected void onLoad() {
+        loadedRole = role;
+        loadedArrondissementId = arrondissementId;
+    }
+
+    // Whatever the code path, a token must not keep a role or an arrondissement the user no longer has
+    @PreUpdate
+    protected void onUpdate() {
+        if (!Objects.equals(role, loadedRole) || !Objects.equals(arrondissementId, loadedArrondissementId)) {
+            tokenVersion++;
+            onLoad();
+        }
+    }
+
     // Getters and setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -53,4 +91,7 @@ public class User {
     public void setArrondissementId(Long arrondissementId) { this.arrondissementId = arrondissementId; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public int getTokenVersion() { return tokenVersion; }
+    public void setTokenVersion(int tokenVersion) { this.tokenVersion = tokenVersion; }
+    public Long getWrittenTxId() { return writtenTxId; }
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+package com.citizenact.backend.geo;
+
+import com.citizenact.backend.entity.Arrondissement;
+import com.citizenact.backend.repository.ArrondissementRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory spatial index of the ACTIVE arrondissements' GeoJSON boundaries. Resolves a
+ * position to its arrondissement with an R-tree lookup on the bounding boxes followed by an
+ * exact point-in-polygon test on the few candidates.
+ *
+ * <p>The index is immutable and swapped as a whole by {@link #rebuild()}, which runs at
+ * startup and after an arrondissement is created or changes status.
+ */
+@Component
+public class ArrondissementIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArrondissementIndex.class);
+
+    private final ArrondissementRepository arrondissementRepository;
+    private final ObjectMapper objectMapper;
+    private volatile Snapshot snapshot = new Snapshot(new StrTree<>(List.of()), Map.of());
+
+    public ArrondissementIndex(ArrondissementRepository arrondissementRepository, ObjectMapper objectMapper) {
+        this.arrondissementRepository = arrondissementRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        List<StrTree.Entry<Located>> entries = new ArrayList<>();
+        Map<Long, GeoPolygon> shapes = new HashMap<>();
+        for (Arrondissement arrondissement : arrondissementRepository.findAll()) {
+            if (!"ACTIVE".equals(arrondissement.getStatus()) || arrondissement.getGeo() == null) {
+                continue;
+            }
+            GeoPolygon shape;
+            try {
+                shape = GeoPolygon.parse(objectMapper.readTree(arrondissement.getGeo()));
+            } catch (Exception e) {
+                logger.warn("Skipping arrondissement {} with invalid GeoJSON: {}", arrondissement.getId(), e.getMessage());
+                continue;
+            }
+            shapes.put(arrondissement.getId(), shape);
+            entries.add(new StrTree.Entry<>(shape.getMinLon(), shape.getMinLat(), shape.getMaxLon(), shape.getMaxLat(),
+                    new Located(arrondissement.getId(), shape)));
+        }
+        snapshot = new Snapshot(new StrTree<>(entries), shapes);
+        logger.info("Arrondissement index built with {} polygons", entries.size());
+    }
+
+    /** The arrondissement containing the position; the lowest id wins where boundaries overlap. */
+    public Optional<Long> locate(double latitude, double longitude) {
+        Long[] found = new Long[1];
+        snapshot.tree.query(longitude, latitude, located -> {
+            if ((found[0] == null || located.id < found[0]) && located.shape.contains(longitude, latitude)) {
+                found[0] = located.id;
+            }
+        });
+        return Optional.ofNullable(found[0]);
+    }
+
+    /** Whether the arrondissement is ACTIVE and has a usable boundary. */
+    public boolean isIndexed(Long arrondissementId) {
+        return snapshot.shapes.containsKey(arrondissementId);
+    }
+
+    public boolean contains(Long arrondissementId, double latitude, double longitude) {
+        GeoPolygon shape = snapshot.shapes.get(arrondissementId);
+        return shape != null && shape.contains(longitude, latitude);
+    }
+
+    private static final class Located {
+        private final long id;
+        private final GeoPolygon shape;
+
+        private Located(long id, GeoPolygon shape) {
+            this.id = id;
+            this.shape = shape;
+        }
+    }
+
+    private static final class Snapshot {
+        private final StrTree<Located> tree;
+        private final Map<Long, GeoPolygon> shapes;
+
+        private Snapshot(StrTree<Located> tree, Map<Long, GeoPolygon> shapes) {
+            this.tree = tree;
+            this.shapes = shapes;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.citizenact.backend.geo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Immutable R-tree bulk-loaded with Sort-Tile-Recursive packing. Entries are sorted into
+ * vertical slices by the x of their centre, each slice by y, and packed {@link #NODE_CAPACITY}
+ * to a node; upper levels are packed the same way. A point query visits O(log n) nodes.
+ */
+public final class StrTree<T> {
+
+    private static final int NODE_CAPACITY = 16;
+
+    private final Node root;
+    private final int size;
+
+    public StrTree(List<Entry<T>> entries) {
+        this.size = entries.size();
+        List<Node> level = new ArrayList<>(entries.size());
+        for (Entry<T> entry : entries) {
+            level.add(new Node(entry.minX, entry.minY, entry.maxX, entry.maxY, null, entry.value));
+        }
+        while (level.size() > 1) {
+            level = pack(level);
+        }
+        this.root = level.isEmpty() ? null : level.get(0);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Passes every value whose box contains the point to the consumer. */
+    @SuppressWarnings("unchecked")
+    public void query(double x, double y, Consumer<T> consumer) {
+        if (root != null) {
+            query(root, x, y, (Consumer<Object>) consumer);
+        }
+    }
+
+    private static void query(Node node, double x, double y, Consumer<Object> consumer) {
+        if (x < node.minX || x > node.maxX || y < node.minY || y > node.maxY) {
+            return;
+        }
+        if (node.children == null) {
+            consumer.accept(node.value);
+            return;
+        }
+        for (Node child : node.children) {
+            query(child, x, y, consumer);
+        }
+    }
+
+    private static List<Node> pack(List<Node> nodes) {
+        int parentCount = (nodes.size() + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int sliceCount = (int) Math.ceil(Math.sqrt(parentCount));
+        int sliceSize = sliceCount * NODE_CAPACITY;
+        List<Node> sorted = new ArrayList<>(nodes);
+        sorted.sort(Comparator.comparingDouble(n -> n.minX + n.maxX));
+        List<Node> parents = new ArrayList<>(parentCount);
+        for (int s = 0; s < sorted.size(); s += sliceSize) {
+            List<Node> slice = new ArrayList<>(sorted.subList(s, Math.min(s + sliceSize, sorted.size())));
+            slice.sort(Comparator.comparingDouble(n -> n.minY + n.maxY));
+            for (int i = 0; i < slice.size(); i += NODE_CAPACITY) {
+                parents.add(Node.parentOf(slice.subList(i, Math.min(i + NODE_CAPACITY, slice.size()))));
+            }
+        }
+        return parents;
+    }
+
+    public static final class Entry<T> {
+        private final double minX;
+        private final double minY;
+        private final double maxX;
+        private final double maxY;
+        private final T value;
+
+        public Entry(double minX, double minY, double maxX, double maxY, T value) {
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.value = value;
+        }
+    }
+
+    private static final class Node {
+        private final double minX;
+        private final double minY;
+        private final double maxX;
+        private final double maxY;
+        private final Node[] children; // Null for leaves
+        private final Object value;
+
+        private Node(double minX, double minY, double maxX, double maxY, Node[] children, Object value) {
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.children = children;
+            this.value = value;
+        }
+
+        private static Node parentOf(List<Node> children) {
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+            for (Node child : children) {
+                minX = Math.min(minX, child.minX);
+                minY = Math.min(minY, child.minY);
+                maxX = Math.max(maxX, child.maxX);
+                maxY = Math.max(maxY, child.maxY);
+            }
+            return new Node(minX, minY, maxX, maxY, children.toArray(new Node[0]), null);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.citizenact.backend.repository;
 
 import com.citizenact.backend.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,4 +15,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     List<User> findByArrondissementIdAndRole(Long arrondissementId, String role);
     List<User> findAllByRoleIn(List<String> roles);
+
+    // (id, tokenVersion) pairs for the token revocation cache
+    @Query("select u.id, u.tokenVersion from User u where u.tokenVersion > 0")
+    List<Object[]> findRevokedTokenVersions();
+
+    // Users written by the transactions in [fromTxId, upToTxId), see ChangeLogRepository#findVisibleUpToTxId
+    @Query("select u.id, u.tokenVersion from User u where u.tokenVersion > 0 " +
+            "and u.writtenTxId >= :fromTxId and u.writtenTxId < :upToTxId")
+    List<Object[]> findTokenVersionsWrittenBetween(@Param("fromTxId") long fromTxId, @Param("upToTxId") long upToTxId);
 }
\ No newline at end of file
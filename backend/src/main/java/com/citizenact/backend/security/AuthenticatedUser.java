@@ -0,0 +1,30 @@
+package com.citizenact.backend.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Principal of HTTP Basic requests. Carries the user's id, role and arrondissement so that
+ * {@link CurrentUser} does not have to load them again.
+ */
+public class AuthenticatedUser extends User {
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+    private final String role;
+    private final Long arrondissementId;
+
+    public AuthenticatedUser(Long id, String username, String password, String role, Long arrondissementId,
+                             Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, authorities);
+        this.id = id;
+        this.role = role;
+        this.arrondissementId = arrondissementId;
+    }
+
+    public Long getId() { return id; }
+    public String getRole() { return role; }
+    public Long getArrondissementId() { return arrondissementId; }
+}
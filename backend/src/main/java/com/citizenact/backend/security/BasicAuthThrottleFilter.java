@@ -0,0 +1,63 @@
+package com.citizenact.backend.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Refuses "Authorization: Basic" requests with 429 while the caller's IP or the claimed
+ * username has used up its {@link AuthThrottle} budget, before the user lookup and the password
+ * hash run. Failed authentications are charged by {@link AuthThrottle#onAuthenticationFailure}.
+ */
+public class BasicAuthThrottleFilter extends OncePerRequestFilter {
+
+    private static final String BASIC_PREFIX = "Basic ";
+
+    private final AuthThrottle authThrottle;
+
+    public BasicAuthThrottleFilter(AuthThrottle authThrottle) {
+        this.authThrottle = authThrottle;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BASIC_PREFIX, 0, BASIC_PREFIX.length())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try {
+            authThrottle.check(request.getRemoteAddr(), username(header.substring(BASIC_PREFIX.length()).trim()));
+        } catch (TooManyAttemptsException e) {
+            // Written here: an error dispatch would be unauthenticated and answered with 401
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write("{\"message\":\"" + e.getMessage() + "\"}");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // Malformed credentials are rejected by BasicAuthenticationFilter; only the IP is checked then
+    private static String username(String credentials) {
+        try {
+            String decoded = new String(Base64.getDecoder().decode(credentials), StandardCharsets.UTF_8);
+            int colon = decoded.indexOf(':');
+            return colon < 0 ? null : decoded.substring(0, colon);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
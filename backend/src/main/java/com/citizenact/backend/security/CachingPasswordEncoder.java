@@ -0,0 +1,138 @@
+package com.citizenact.backend.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers successful password checks for a short while, so that HTTP Basic clients pay
+ * the adaptive hash once per {@code ttl-seconds} instead of on every request.
+ *
+ * <p>Entries are keyed by an HMAC of the stored hash and the raw password under a key that
+ * never leaves the process: the cache holds nothing that could be checked offline, and a
+ * password change produces a new stored hash, which no cached entry matches. Failed checks
+ * are never cached. Entries live in {@link #STRIPES} access-ordered maps, each behind its own
+ * lock, holding at most {@code max-size / STRIPES} entries and dropping the least recently used
+ * one when full. Hits and misses are published as citizenact.password.cache.* metrics.
+ */
+public class CachingPasswordEncoder implements PasswordEncoder {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int STRIPES = 64;
+
+    private final PasswordEncoder delegate;
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> mac;
+    private final Map<String, Long>[] verified;
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final long ttlNanos;
+
+    public CachingPasswordEncoder(PasswordEncoder delegate, long ttlSeconds, int maxSize, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        this.mac = ThreadLocal.withInitial(this::newMac);
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.verified = newStripes(Math.max(1, maxSize / STRIPES));
+        FunctionCounter.builder("citizenact.password.cache.hits", hits, LongAdder::sum)
+                .description("Password checks answered from the verified-credential cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("citizenact.password.cache.misses", misses, LongAdder::sum)
+                .description("Password checks that ran the password hash")
+                .register(meterRegistry);
+        Gauge.builder("citizenact.password.cache.size", size, AtomicInteger::get)
+                .description("Verified credentials currently cached")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return delegate.matches(rawPassword, encodedPassword);
+        }
+        String digest = digest(rawPassword, encodedPassword);
+        Map<String, Long> stripe = verified[digest.hashCode() & (STRIPES - 1)];
+        synchronized (stripe) {
+            Long expiresAt = stripe.get(digest);
+            if (expiresAt != null) {
+                if (expiresAt - System.nanoTime() > 0) {
+                    hits.increment();
+                    return true;
+                }
+                stripe.remove(digest);
+                size.decrementAndGet();
+            }
+        }
+        misses.increment();
+        if (!delegate.matches(rawPassword, encodedPassword)) {
+            return false;
+        }
+        synchronized (stripe) {
+            if (stripe.put(digest, System.nanoTime() + ttlNanos) == null) {
+                size.incrementAndGet();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private String digest(CharSequence rawPassword, String encodedPassword) {
+        Mac hmac = mac.get();
+        hmac.update(encodedPassword.getBytes(StandardCharsets.UTF_8));
+        hmac.update((byte) 0);
+        return Base64.getEncoder().encodeToString(hmac.doFinal(rawPassword.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Long>[] newStripes(int maxPerStripe) {
+        Map<String, Long>[] stripes = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                    if (size() <= maxPerStripe) {
+                        return false;
+                    }
+                    size.decrementAndGet();
+                    return true;
+                }
+            };
+        }
+        return stripes;
+    }
+
+    private Mac newMac() {
+        try {
+            Mac hmac = Mac.getInstance(HMAC_ALGORITHM);
+            hmac.init(key);
+            return hmac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.citizenact.backend.security;
+
+import com.citizenact.backend.entity.User;
+import com.citizenact.backend.repository.ChangeLogRepository;
+import com.citizenact.backend.repository.UserRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Current token version of every user whose tokens were ever revoked. A token is only
+ * accepted if it carries its user's current version; bumping the version (block, unblock,
+ * password change, or a new role or arrondissement, see {@code User#onUpdate}) invalidates
+ * everything issued before.
+ *
+ * <p>Versions are loaded once at startup, updated directly by this instance, and picked up
+ * from the users table every few seconds for revocations made by other instances. Every write
+ * of a user row is stamped by the database with its transaction id; each refresh reads the rows
+ * written between the previous visible bound and the current one, so neither clock skew nor a
+ * slow commit can make a revocation fall between two refreshes.
+ */
+@Service
+public class TokenRevocationService {
+
+    private final UserRepository userRepository;
+    private final ChangeLogRepository changeLogRepository;
+    private final Map<Long, Integer> versions = new ConcurrentHashMap<>();
+    private volatile long loadedUpTo; // Writes below this tx_id have been applied
+
+    public TokenRevocationService(UserRepository userRepository, ChangeLogRepository changeLogRepository) {
+        this.userRepository = userRepository;
+        this.changeLogRepository = changeLogRepository;
+        // Bound taken first: a write committing during the load is read again by the next refresh
+        long upTo = changeLogRepository.findVisibleUpToTxId();
+        apply(userRepository.findRevokedTokenVersions());
+        loadedUpTo = upTo;
+    }
+
+    public int currentVersion(Long userId) {
+        return versions.getOrDefault(userId, 0);
+    }
+
+    // Bumps the version on the entity; the caller saves it and then calls recordRevocation
+    public void revoke(User user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+    }
+
+    public void recordRevocation(User user) {
+        versions.merge(user.getId(), user.getTokenVersion(), Math::max);
+    }
+
+    @Scheduled(fixedDelayString = "${citizenact.security.token-revocation-refresh-ms:5000}")
+    public void refresh() {
+        long upTo = changeLogRepository.findVisibleUpToTxId();
+        apply(userRepository.findTokenVersionsWrittenBetween(loadedUpTo, upTo));
+        loadedUpTo = upTo;
+    }
+
+    private void apply(List<Object[]> rows) {
+        for (Object[] row : rows) {
+            versions.merge((Long) row[0], (Integer) row[1], Math::max);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.citizenact.backend.security;
+
+/**
+ * Thrown by {@link AuthThrottle} when a client exceeds its login or registration budget.
+ */
+public class TooManyAttemptsException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public TooManyAttemptsException(long retryAfterSeconds) {
+        super("Too many attempts, retry in " + retryAfterSeconds + " seconds");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() { return retryAfterSeconds; }
+}
@@ -4,10 +4,13 @@ import com.citizenact.backend.dto.UserDTO;
 import com.citizenact.backend.dto.UserRequest;
 import com.citizenact.backend.entity.User;
 import com.citizenact.backend.repository.UserRepository;
+import com.citizenact.backend.security.TokenService;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -16,11 +19,18 @@ public class AuthService {
     private final UserRepository userRepository;
     private final AuthenticationManager authenticationManager;
     private final NotificationService notificationService;
+    private final TokenService tokenService;
+    private final PasswordEncoder passwordEncoder;
+    private final UserBloomFilter userBloomFilter;
 
-    public AuthService(UserRepository userRepository, AuthenticationManager authenticationManager, NotificationService notificationService) {
+    public AuthService(UserRepository userRepository, AuthenticationManager authenticationManager, NotificationService notificationService,
+                       TokenService tokenService, PasswordEncoder passwordEncoder, UserBloomFilter userBloomFilter) {
         this.userRepository = userRepository;
         this.authenticationManager = authenticationManager;
         this.notificationService = notificationService;
+        this.tokenService = tokenService;
+        this.passwordEncoder = passwordEncoder;
+        this.userBloomFilter = userBloomFilter;
     }
 
     public UserDTO login(UserRequest userRequest) {
@@ -31,15 +41,22 @@ public class AuthService {
         SecurityContextHolder.getContext().setAuthentication(authentication);
         User user = userRepository.findByUsername(userRequest.getUsername())
             .orElseThrow(() -> new RuntimeException("User not found after authentication"));
-        return toDTO(user);
+        UserDTO dto = toDTO(user);
+        // Blocked accounts are refused by the client and get no token
+        if ("ACTIVE".equals(user.getStatus())) {
+            dto.setToken(tokenService.issue(user));
+            dto.setExpiresIn(tokenService.getExpirationSeconds());
+        }
+        return dto;
     }
 
     public UserDTO register(UserRequest userRequest) {
         if (userRequest.getUsername() == null || userRequest.getEmail() == null || userRequest.getPassword() == null) {
             throw new RuntimeException("Username, email, and password are required");
         }
-        if (userRepository.findByUsername(userRequest.getUsername()).isPresent() ||
-            userRepository.findByEmail(userRequest.getEmail()).isPresent()) {
+        // Values the filter has never seen cannot be taken and skip their lookup
+        if ((userBloomFilter.mightContainUsername(userRequest.getUsername()) && userRepository.findByUsername(userRequest.getUsername()).isPresent()) ||
+            (userBloomFilter.mightContainEmail(userRequest.getEmail()) && userRepository.findByEmail(userRequest.getEmail()).isPresent())) {
             throw new RuntimeException("Username or email already exists");
         }
         if (userRequest.getRole() != null && !userRequest.getRole().equals("USER")) {
@@ -48,11 +65,16 @@ public class AuthService {
         User user = new User();
         user.setUsername(userRequest.getUsername());
         user.setEmail(userRequest.getEmail());
-        user.setPassword(userRequest.getPassword());
+        user.setPassword(passwordEncoder.encode(userRequest.getPassword()));
         user.setRole("USER");
         user.setStatus("ACTIVE");
         user.setArrondissementId(null);
-        user = userRepository.save(user);
+        try {
+            user = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("Username or email already exists");
+        }
+        userBloomFilter.addUser(user.getUsername(), user.getEmail());
         notificationService.createRegistrationNotification(user.getId(), "Vous vous êtes inscrit avec succès");
         return toDTO(user);
     }
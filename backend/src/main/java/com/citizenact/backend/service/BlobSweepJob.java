@@ -0,0 +1,77 @@
+package com.citizenact.backend.service;
+
+import com.citizenact.backend.repository.SignalementRepository;
+import com.citizenact.backend.storage.BlobStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Deletes image blobs that no signalement references, such as the upload of a signalement
+ * whose transaction rolled back. The blob is written before that transaction runs, so only
+ * blobs not uploaded for {@code grace-hours} are considered; a blob uploaded again in the
+ * meantime is refreshed by the store and skipped.
+ */
+@Service
+public class BlobSweepJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlobSweepJob.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final BlobStore blobStore;
+    private final SignalementRepository signalementRepository;
+    private final Duration grace;
+
+    public BlobSweepJob(BlobStore blobStore, SignalementRepository signalementRepository,
+                        @Value("${citizenact.storage.sweep.grace-hours:24}") long graceHours) {
+        this.blobStore = blobStore;
+        this.signalementRepository = signalementRepository;
+        this.grace = Duration.ofHours(graceHours);
+    }
+
+    // Walks the whole image directory: the scheduler only hands the run to the maintenance executor
+    @Async("maintenanceExecutor")
+    @Scheduled(cron = "${citizenact.storage.sweep.cron:0 0 4 * * *}")
+    public void run() {
+        Instant cutoff = Instant.now().minus(grace);
+        long deleted = 0;
+        try (Stream<String> hashes = blobStore.findHashesOlderThan(cutoff)) {
+            List<String> batch = new ArrayList<>(BATCH_SIZE);
+            Iterator<String> it = hashes.iterator();
+            while (it.hasNext()) {
+                batch.add(it.next());
+                if (batch.size() == BATCH_SIZE || !it.hasNext()) {
+                    deleted += sweep(batch, cutoff);
+                    batch.clear();
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Orphan image sweep failed: {}", e.getMessage(), e);
+        }
+        logger.info("Orphan image sweep: {} unreferenced blobs deleted", deleted);
+    }
+
+    private int sweep(List<String> hashes, Instant cutoff) throws IOException {
+        Set<String> referenced = signalementRepository.findImageHashesIn(hashes);
+        int deleted = 0;
+        for (String hash : hashes) {
+            if (!referenced.contains(hash) && blobStore.deleteIfOlderThan(hash, cutoff)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+}
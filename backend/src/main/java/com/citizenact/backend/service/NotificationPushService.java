@@ -0,0 +1,122 @@
+package com.citizenact.backend.service;
+
+import com.citizenact.backend.dto.NotificationDTO;
+import com.citizenact.backend.dto.NotificationMessageDTO;
+import com.citizenact.backend.entity.User;
+import com.citizenact.backend.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WebSocket channel on /ws/notifications. The user's backlog is sent once on connect;
+ * afterwards each notification created for the user is pushed after its transaction commits,
+ * from the push executor, so writers never wait on a socket.
+ */
+@Service
+public class NotificationPushService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationPushService.class);
+    private static final int SEND_TIME_LIMIT_MS = 10_000;
+    private static final int SEND_BUFFER_LIMIT = 512 * 1024;
+    private static final String USER_ID_ATTRIBUTE = "userId";
+    private static final int BACKLOG_SIZE = 50;
+    private static final int MAX_SESSIONS_PER_USER = 5; // Each session holds up to SEND_BUFFER_LIMIT
+
+    private final NotificationService notificationService;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final Map<Long, Set<WebSocketSession>> sessions = new ConcurrentHashMap<>();
+
+    public NotificationPushService(NotificationService notificationService, UserRepository userRepository,
+                                   ObjectMapper objectMapper) {
+        this.notificationService = notificationService;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public void register(WebSocketSession session) throws IOException {
+        Principal principal = session.getPrincipal();
+        User user = principal == null ? null : userRepository.findByUsername(principal.getName()).orElse(null);
+        if (user == null) {
+            session.close(CloseStatus.POLICY_VIOLATION);
+            return;
+        }
+        // Sends from the push executor and the backlog below may overlap
+        WebSocketSession concurrentSession = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, SEND_BUFFER_LIMIT);
+        session.getAttributes().put(USER_ID_ATTRIBUTE, user.getId());
+        // Registered before reading the backlog so nothing created in between is missed;
+        // clients de-duplicate on notification id. Check and add under the key's lock, like
+        // unregister's removal, so a session never lands in a set already dropped from the map
+        boolean[] added = new boolean[1];
+        sessions.compute(user.getId(), (k, set) -> {
+            Set<WebSocketSession> userSessions = set != null ? set : ConcurrentHashMap.newKeySet();
+            if (userSessions.size() < MAX_SESSIONS_PER_USER) {
+                added[0] = userSessions.add(concurrentSession);
+            }
+            return userSessions.isEmpty() ? null : userSessions;
+        });
+        if (!added[0]) {
+            logger.debug("Refusing notification session for user {}: too many open sessions", user.getId());
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("Too many open sessions"));
+            return;
+        }
+        // The backlog is the newest page; older notifications are paged through GET /api/notifications
+        send(concurrentSession, new NotificationMessageDTO(NotificationMessageDTO.BACKLOG,
+                notificationService.getUserNotifications(user.getId(), null, BACKLOG_SIZE, false).getItems()));
+    }
+
+    public void unregister(WebSocketSession session) {
+        Long userId = (Long) session.getAttributes().get(USER_ID_ATTRIBUTE);
+        if (userId == null) {
+            return;
+        }
+        sessions.computeIfPresent(userId, (k, set) -> {
+            set.removeIf(s -> s.getId().equals(session.getId()));
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    @Async("pushExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationCreated(NotificationDTO notification) {
+        Set<WebSocketSession> userSessions = sessions.get(notification.getUserId());
+        if (userSessions == null) {
+            return;
+        }
+        NotificationMessageDTO message = new NotificationMessageDTO(NotificationMessageDTO.NOTIFICATION, List.of(notification));
+        for (WebSocketSession session : userSessions) {
+            send(session, message);
+        }
+    }
+
+    private void send(WebSocketSession session, NotificationMessageDTO message) {
+        try {
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(message)));
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to serialize notification message: {}", e.getMessage());
+        } catch (IOException | IllegalStateException e) {
+            // Closed, or too slow to keep up: the decorator has given up on it
+            logger.debug("Dropping notification session {}: {}", session.getId(), e.getMessage());
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
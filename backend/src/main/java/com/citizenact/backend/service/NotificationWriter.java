@@ -0,0 +1,188 @@
+package com.citizenact.backend.service;
+
+import com.citizenact.backend.entity.ChangeLogEntry;
+import com.citizenact.backend.entity.Notification;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind for new notifications. Callers only enqueue; one writer thread drains the
+ * queue and inserts up to {@code batchSize} rows per statement, once the batch is full or
+ * {@code flushIntervalMs} after its first row. Ids come from the table's sequence in one
+ * round trip, so the rows need no per-row IDENTITY read-back.
+ *
+ * <p>When the queue is full the caller writes its notification itself, so a burst slows
+ * the request down instead of losing notifications. Rows still queued when the process is
+ * killed are lost; a normal shutdown drains the queue first.
+ */
+@Service
+public class NotificationWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationWriter.class);
+    private static final String INSERT_PREFIX =
+            "INSERT INTO notifications (id, user_id, signalement_id, message, is_read, created_at) VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeLogService changeLogService;
+    private final UnreadCounterService unreadCounterService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BlockingQueue<Notification> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final Thread writerThread = new Thread(this::drain, "notification-writer");
+    private volatile boolean running = true;
+
+    public NotificationWriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                              ChangeLogService changeLogService, UnreadCounterService unreadCounterService,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${citizenact.notifications.queue-capacity:10000}") int queueCapacity,
+                              @Value("${citizenact.notifications.batch-size:500}") int batchSize,
+                              @Value("${citizenact.notifications.flush-interval-ms:200}") long flushIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.changeLogService = changeLogService;
+        this.unreadCounterService = unreadCounterService;
+        this.eventPublisher = eventPublisher;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    @PostConstruct
+    void start() {
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    public void enqueue(Notification notification) {
+        if (!running || !queue.offer(notification)) {
+            logger.warn("Notification queue full, writing synchronously for user {}", notification.getUserId());
+            List<Notification> single = Collections.singletonList(notification);
+            transactionTemplate.executeWithoutResult(status -> insert(single));
+            afterCommit(single);
+        }
+    }
+
+    /**
+     * Writes the notifications in the caller's transaction, batchSize rows per statement, for
+     * callers that must commit them atomically with their own changes (the outbox relay).
+     * Unread counters and pushes follow the commit.
+     */
+    public void writeInCurrentTransaction(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        for (int from = 0; from < notifications.size(); from += batchSize) {
+            insert(notifications.subList(from, Math.min(from + batchSize, notifications.size())));
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                NotificationWriter.this.afterCommit(notifications);
+            }
+        });
+    }
+
+    private void drain() {
+        List<Notification> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Notification first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    Notification next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Notification writer failed: {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Notification> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(batch));
+            afterCommit(batch);
+        } catch (RuntimeException e) {
+            // Isolate the failing row instead of losing the whole batch
+            logger.error("Batch insert of {} notifications failed, retrying one by one: {}", batch.size(), e.getMessage());
+            for (Notification notification : batch) {
+                List<Notification> single = Collections.singletonList(notification);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(single));
+                    afterCommit(single);
+                } catch (RuntimeException rowFailure) {
+                    logger.error("Dropping notification for user {}: {}", notification.getUserId(), rowFailure.getMessage());
+                }
+            }
+        }
+    }
+
+    private void insert(List<Notification> batch) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT nextval(pg_get_serial_sequence('notifications', 'id')) FROM generate_series(1, ?)",
+                Long.class, batch.size());
+        List<Object> args = new ArrayList<>(batch.size() * 6);
+        for (int i = 0; i < batch.size(); i++) {
+            Notification notification = batch.get(i);
+            notification.setId(ids.get(i));
+            args.add(notification.getId());
+            args.add(notification.getUserId());
+            args.add(notification.getSignalementId());
+            args.add(notification.getMessage());
+            args.add(notification.isRead());
+            args.add(notification.getCreatedAt());
+        }
+        jdbcTemplate.update(INSERT_PREFIX + String.join(", ", Collections.nCopies(batch.size(), ROW_PLACEHOLDERS)),
+                args.toArray());
+        changeLogService.recordNotifications(batch, ChangeLogEntry.UPSERT);
+    }
+
+    private void afterCommit(List<Notification> batch) {
+        Map<Long, Long> perUser = batch.stream()
+                .collect(Collectors.groupingBy(Notification::getUserId, Collectors.counting()));
+        perUser.forEach(unreadCounterService::adjust);
+        for (Notification notification : batch) {
+            eventPublisher.publishEvent(NotificationService.toDTO(notification)); // Poussée WebSocket
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.citizenact.backend.service;
+
+import com.citizenact.backend.dto.SignalementEventDTO;
+import com.citizenact.backend.entity.Notification;
+import com.citizenact.backend.entity.OutboxEvent;
+import com.citizenact.backend.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Carries out the outbox events written by SignalementService. Each batch of events is
+ * claimed with FOR UPDATE SKIP LOCKED, turned into notifications, and deleted in one
+ * transaction, so every event is handled once even with several instances running.
+ * Unread counters and pushes follow the commit.
+ */
+@Service
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final NotificationWriter notificationWriter;
+    private final AgentDirectory agentDirectory;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, NotificationWriter notificationWriter,
+                       AgentDirectory agentDirectory, ApplicationEventPublisher eventPublisher,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${citizenact.outbox.batch-size:100}") int batchSize) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.notificationWriter = notificationWriter;
+        this.agentDirectory = agentDirectory;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${citizenact.outbox.poll-interval-ms:250}")
+    public void relay() {
+        int relayed;
+        do {
+            relayed = relayBatch();
+        } while (relayed == batchSize);
+    }
+
+    private int relayBatch() {
+        List<Long> claimedIds = new ArrayList<>();
+        try {
+            return transactionTemplate.execute(status -> {
+                List<OutboxEvent> events = outboxEventRepository.lockNextBatch(batchSize);
+                events.forEach(event -> claimedIds.add(event.getId()));
+                dispatch(events);
+                outboxEventRepository.deleteAllInBatch(events);
+                return events.size();
+            });
+        } catch (RuntimeException e) {
+            logger.error("Outbox batch failed, relaying {} events one by one: {}", claimedIds.size(), e.getMessage());
+            claimedIds.forEach(this::relayOne);
+            return 0;
+        }
+    }
+
+    // Isolates a failing event so it cannot hold back the others
+    private void relayOne(Long id) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.lockById(id).ifPresent(event -> {
+                dispatch(List.of(event));
+                outboxEventRepository.delete(event);
+            }));
+        } catch (RuntimeException e) {
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.lockById(id).ifPresent(event -> {
+                event.setAttempts(event.getAttempts() + 1);
+                if (event.getAttempts() >= MAX_ATTEMPTS) {
+                    logger.error("Giving up on outbox event {} ({}) after {} attempts: {}",
+                            id, event.getEventType(), event.getAttempts(), e.getMessage());
+                    outboxEventRepository.delete(event);
+                } else {
+                    outboxEventRepository.save(event);
+                }
+            }));
+        }
+    }
+
+    private void dispatch(List<OutboxEvent> events) {
+        List<Notification> notifications = new ArrayList<>();
+        for (OutboxEvent event : events) {
+            if (OutboxEvent.SIGNALEMENT_CREATED.equals(event.getEventType())) {
+                notifications.add(notification(event.getUserId(), event, "Signalement créé: " + event.getTitle()));
+                notifications.addAll(agentDirectory.findActiveAgentIds(event.getArrondissementId()).stream()
+                        .map(agentId -> notification(agentId, event,
+                                "Nouveau signalement dans votre arrondissement: " + event.getTitle()))
+                        .collect(Collectors.toList()));
+            } else if (OutboxEvent.TRAITEMENT_STATUS_CHANGED.equals(event.getEventType())) {
+                notifications.add(notification(event.getUserId(), event,
+                        "Signalement status updated to: " + event.getTraitementStatus()));
+                // Streamed to SSE clients once this transaction commits
+                eventPublisher.publishEvent(new SignalementEventDTO(event.getSignalementId(), event.getUserId(),
+                        event.getArrondissementId(), event.getTitle(), event.getTraitementStatus(), event.getCreatedAt()));
+            } else {
+                logger.error("Unknown outbox event type: {}", event.getEventType());
+            }
+        }
+        notificationWriter.writeInCurrentTransaction(notifications);
+    }
+
+    private static Notification notification(Long userId, OutboxEvent event, String message) {
+        Notification notification = new Notification();
+        notification.setUserId(userId);
+        notification.setSignalementId(event.getSignalementId());
+        notification.setMessage(message);
+        notification.setRead(false);
+        return notification;
+    }
+}
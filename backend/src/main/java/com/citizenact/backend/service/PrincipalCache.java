@@ -0,0 +1,159 @@
+package com.citizenact.backend.service;
+
+import com.citizenact.backend.entity.User;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Short-lived cache of the users behind authenticated requests, so that HTTP Basic does not
+ * cost a users query per request. Entries expire after {@code ttl-seconds} and are dropped as
+ * soon as the user's profile or status changes. Users live in {@link #STRIPES} access-ordered
+ * maps, each behind its own lock, holding at most {@code max-size / STRIPES} users and dropping
+ * the least recently used one when full.
+ *
+ * <p>Hits, misses and size are published as citizenact.principal.cache.* metrics.
+ */
+@Service
+public class PrincipalCache {
+
+    private static final int STRIPES = 64;
+
+    private final Map<String, Entry>[] entries;
+    private final AtomicInteger size = new AtomicInteger();
+    // Bumped by every invalidation; a load that overlapped one is not cached
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final long ttlNanos;
+
+    public PrincipalCache(MeterRegistry meterRegistry,
+                          @Value("${citizenact.security.principal-cache.ttl-seconds:60}") long ttlSeconds,
+                          @Value("${citizenact.security.principal-cache.max-size:10000}") int maxSize) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = newStripes(Math.max(1, maxSize / STRIPES));
+        FunctionCounter.builder("citizenact.principal.cache.hits", hits, LongAdder::sum)
+                .description("Authentications served from the principal cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("citizenact.principal.cache.misses", misses, LongAdder::sum)
+                .description("Authentications that loaded the user from the database")
+                .register(meterRegistry);
+        Gauge.builder("citizenact.principal.cache.size", size, AtomicInteger::get)
+                .description("Users currently cached")
+                .register(meterRegistry);
+    }
+
+    public Optional<Snapshot> get(String username, Function<String, Optional<User>> loader) {
+        Map<String, Entry> stripe = stripe(username);
+        synchronized (stripe) {
+            Entry entry = stripe.get(username);
+            if (entry != null) {
+                if (entry.expiresAt - System.nanoTime() > 0) {
+                    hits.increment();
+                    return Optional.of(entry.snapshot);
+                }
+                remove(stripe, username);
+            }
+        }
+        misses.increment();
+        long loadGeneration = generation.get();
+        Optional<Snapshot> loaded = loader.apply(username).map(Snapshot::new);
+        loaded.ifPresent(snapshot -> {
+            synchronized (stripe) {
+                // Checked under the stripe lock, which invalidate also takes after bumping it
+                if (generation.get() == loadGeneration
+                        && stripe.put(username, new Entry(snapshot, System.nanoTime() + ttlNanos)) == null) {
+                    size.incrementAndGet();
+                }
+            }
+        });
+        return loaded;
+    }
+
+    public void invalidate(String username) {
+        generation.incrementAndGet();
+        Map<String, Entry> stripe = stripe(username);
+        synchronized (stripe) {
+            remove(stripe, username);
+        }
+    }
+
+    private Map<String, Entry> stripe(String username) {
+        return entries[username.hashCode() & (STRIPES - 1)];
+    }
+
+    // Callers hold the stripe's lock
+    private void remove(Map<String, Entry> stripe, String username) {
+        if (stripe.remove(username) != null) {
+            size.decrementAndGet();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Entry>[] newStripes(int maxPerStripe) {
+        Map<String, Entry>[] stripes = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PrincipalCache.Entry> eldest) {
+                    if (size() <= maxPerStripe) {
+                        return false;
+                    }
+                    size.decrementAndGet();
+                    return true;
+                }
+            };
+        }
+        return stripes;
+    }
+
+    private static final class Entry {
+        private final Snapshot snapshot;
+        private final long expiresAt;
+
+        private Entry(Snapshot snapshot, long expiresAt) {
+            this.snapshot = snapshot;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Immutable copy of the fields authentication needs. Spring Security erases the
+     * credentials of the UserDetails it is given, so those are rebuilt from this on every use.
+     */
+    public static final class Snapshot {
+        private final Long id;
+        private final String username;
+        private final String password;
+        private final String role;
+        private final String status;
+        private final Long arrondissementId;
+
+        private Snapshot(User user) {
+            this.id = user.getId();
+            this.username = user.getUsername();
+            this.password = user.getPassword();
+            this.role = user.getRole();
+            this.status = user.getStatus();
+            this.arrondissementId = user.getArrondissementId();
+        }
+
+        public Long getId() { return id; }
+        public String getUsername() { return username; }
+        public String getPassword() { return password; }
+        public String getRole() { return role; }
+        public String getStatus() { return status; }
+        public Long getArrondissementId() { return arrondissementId; }
+    }
+}
@@ -0,0 +1,119 @@
+package com.citizenact.backend.service;
+
+import com.citizenact.backend.dto.SignalementEventDTO;
+import com.citizenact.backend.security.CurrentUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server-Sent Events for traitement status changes. Emitters are async servlet responses,
+ * so an idle connection holds no thread; events are written from the push executor.
+ */
+@Service
+public class SignalementStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignalementStreamService.class);
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L; // Clients reconnect after 30 minutes
+    private static final int MAX_STREAMS_PER_KEY = 5;
+    private static final int MAX_STREAMS_PER_ARRONDISSEMENT = 500;
+
+    private final CurrentUser currentUser;
+    private final Map<Long, Set<SseEmitter>> userStreams = new ConcurrentHashMap<>();
+    private final Map<Long, Set<SseEmitter>> arrondissementStreams = new ConcurrentHashMap<>();
+
+    public SignalementStreamService(CurrentUser currentUser) {
+        this.currentUser = currentUser;
+    }
+
+    // Events on the caller's own signalements
+    public SseEmitter openUserStream() {
+        if (!"USER".equals(currentUser.getRole())) {
+            throw new IllegalArgumentException("Only users with role USER can follow their signalements");
+        }
+        return register(userStreams, currentUser.getId(), MAX_STREAMS_PER_KEY);
+    }
+
+    // Events on every signalement of the agent's arrondissement
+    public SseEmitter openArrondissementStream() {
+        if (!"AGENT".equals(currentUser.getRole()) || currentUser.getArrondissementId() == null) {
+            throw new IllegalArgumentException("Agent must be associated with an arrondissement");
+        }
+        return register(arrondissementStreams, currentUser.getArrondissementId(), MAX_STREAMS_PER_ARRONDISSEMENT);
+    }
+
+    @Async("pushExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSignalementEvent(SignalementEventDTO event) {
+        send(userStreams.get(event.getUserId()), event);
+        send(arrondissementStreams.get(event.getArrondissementId()), event);
+    }
+
+    // Keeps proxies from closing idle connections and detects dead clients. Sends block on stalled
+    // sockets, so they run on the push executor rather than the shared scheduler threads
+    @Async("pushExecutor")
+    @Scheduled(fixedRate = 25_000)
+    public void heartbeat() {
+        userStreams.values().forEach(this::ping);
+        arrondissementStreams.values().forEach(this::ping);
+    }
+
+    private SseEmitter register(Map<Long, Set<SseEmitter>> streams, Long key, int maxStreams) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        // Check and add under the key's lock: concurrent connects cannot exceed the cap, and the
+        // removal below cannot drop a set another connect is adding to
+        streams.compute(key, (k, set) -> {
+            Set<SseEmitter> emitters = set != null ? set : ConcurrentHashMap.newKeySet();
+            if (emitters.size() >= maxStreams) {
+                throw new IllegalArgumentException("Too many open streams");
+            }
+            emitters.add(emitter);
+            return emitters;
+        });
+        Runnable remove = () -> streams.computeIfPresent(key, (k, set) -> {
+            set.remove(emitter);
+            return set.isEmpty() ? null : set;
+        });
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        return emitter;
+    }
+
+    private void send(Set<SseEmitter> emitters, SignalementEventDTO event) {
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event()
+                        .name("signalement-status")
+                        .id(String.valueOf(event.getSignalementId()))
+                        .data(event, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                logger.debug("Dropping closed signalement stream: {}", e.getMessage());
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private void ping(Set<SseEmitter> emitters) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().comment("ping"));
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
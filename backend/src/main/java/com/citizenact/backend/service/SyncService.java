@@ -0,0 +1,136 @@
+package com.citizenact.backend.service;
+
+import com.citizenact.backend.dto.SyncDTO;
+import com.citizenact.backend.entity.ChangeLogEntry;
+import com.citizenact.backend.repository.ChangeLogRepository;
+import com.citizenact.backend.security.CurrentUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delta sync for the mobile auto-refresh. The token is the client's position in the change log,
+ * a (tx_id, id) pair; only entries after it are read.
+ *
+ * Identity values are taken at insert time, so a transaction can commit after a later id is
+ * already visible. The token therefore only advances up to the oldest transaction still in
+ * progress in the database: every entry below it has committed, whenever that happened.
+ */
+@Service
+public class SyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncService.class);
+    private static final int MAX_CHANGES = 500;
+
+    private final ChangeLogRepository changeLogRepository;
+    private final SignalementService signalementService;
+    private final NotificationService notificationService;
+    private final ChangeLogService changeLogService;
+    private final CurrentUser currentUser;
+
+    public SyncService(ChangeLogRepository changeLogRepository, SignalementService signalementService,
+                       NotificationService notificationService, ChangeLogService changeLogService,
+                       CurrentUser currentUser) {
+        this.changeLogRepository = changeLogRepository;
+        this.signalementService = signalementService;
+        this.notificationService = notificationService;
+        this.changeLogService = changeLogService;
+        this.currentUser = currentUser;
+    }
+
+    public SyncDTO sync(String token) {
+        String username = currentUser.getUsername();
+        if ("ADMIN".equals(currentUser.getRole())) {
+            logger.warn("Admin {} attempted to sync signalements", username);
+            throw new IllegalArgumentException("Admins cannot access signalements");
+        }
+
+        Long arrondissementId = null;
+        if ("AGENT".equals(currentUser.getRole())) {
+            arrondissementId = currentUser.getArrondissementId();
+            if (arrondissementId == null) {
+                logger.error("Agent {} is not associated with an arrondissement", username);
+                throw new IllegalArgumentException("Agent must be associated with an arrondissement");
+            }
+        }
+
+        SyncDTO dto = new SyncDTO();
+        long upTo = changeLogRepository.findVisibleUpToTxId();
+        long[] since = token != null ? decodeToken(token) : null;
+        if (since == null || since[0] <= changeLogService.getPrunedThroughTxId()) {
+            // Unknown or pruned position: the client reloads its lists and syncs from here
+            dto.setReset(true);
+            dto.setToken(encodeToken(upTo, 0));
+            return dto;
+        }
+        if (upTo <= since[0]) {
+            dto.setToken(token);
+            return dto;
+        }
+
+        List<ChangeLogEntry> changes = changeLogRepository.findVisibleChanges(since[0], since[1], upTo,
+                arrondissementId, currentUser.getId(), Limit.of(MAX_CHANGES + 1));
+        if (changes.size() > MAX_CHANGES) {
+            changes = changes.subList(0, MAX_CHANGES);
+            dto.setHasMore(true);
+            ChangeLogEntry last = changes.get(MAX_CHANGES - 1);
+            dto.setToken(encodeToken(last.getTxId(), last.getId()));
+        } else {
+            dto.setToken(encodeToken(upTo, 0));
+        }
+
+        // Several changes of the same row collapse into its latest state
+        Map<Long, String> signalementChanges = new LinkedHashMap<>();
+        Map<Long, String> notificationChanges = new LinkedHashMap<>();
+        for (ChangeLogEntry change : changes) {
+            Map<Long, String> target = ChangeLogEntry.SIGNALEMENT.equals(change.getEntityType())
+                    ? signalementChanges : notificationChanges;
+            target.remove(change.getEntityId());
+            target.put(change.getEntityId(), change.getOperation());
+        }
+
+        if (!signalementChanges.isEmpty()) {
+            dto.setSignalements(signalementService.getSignalementsByIds(signalementChanges.keySet()));
+        }
+        List<Long> upsertedNotificationIds = new ArrayList<>();
+        notificationChanges.forEach((id, operation) -> {
+            if (ChangeLogEntry.DELETE.equals(operation)) {
+                dto.getDeletedNotificationIds().add(id);
+            } else {
+                upsertedNotificationIds.add(id);
+            }
+        });
+        if (!upsertedNotificationIds.isEmpty()) {
+            dto.setNotifications(notificationService.getNotificationsByIds(upsertedNotificationIds));
+        }
+        return dto;
+    }
+
+    private static String encodeToken(long txId, long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((txId + "." + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // {txId, id}, or null for a token issued before positions carried a transaction id
+    private static long[] decodeToken(String token) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int dot = position.indexOf('.');
+            if (dot < 0) {
+                Long.parseLong(position);
+                return null;
+            }
+            return new long[] {Long.parseLong(position.substring(0, dot)), Long.parseLong(position.substring(dot + 1))};
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid sync token: " + token);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.citizenact.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of the usernames and emails in the users table. A negative answer means the
+ * value is certainly not taken, which lets registration skip its uniqueness lookups; a positive
+ * one may be false and still goes to the database. The unique constraints on users remain the
+ * final check, which also covers users inserted by other instances.
+ *
+ * <p>Filled at startup by streaming the table and on every insert. Until the initial load has
+ * finished every value is reported as possibly present.
+ */
+@Service
+public class UserBloomFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserBloomFilter.class);
+    private static final int FETCH_SIZE = 1000;
+
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+    private final int expectedUsers;
+    private final double falsePositiveRate;
+    private volatile Bits bits;
+    private volatile Bits loading;
+
+    public UserBloomFilter(DataSource dataSource, TransactionTemplate transactionTemplate,
+                           @Value("${citizenact.security.user-filter.expected-users:1000000}") int expectedUsers,
+                           @Value("${citizenact.security.user-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.dataSource = dataSource;
+        this.transactionTemplate = transactionTemplate;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(FETCH_SIZE);
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM users", Long.class);
+        // Usernames and emails share the filter
+        Bits filter = new Bits(2 * Math.max(expectedUsers, 2 * count), falsePositiveRate);
+        // Users inserted from here on are added by addUser, earlier ones are committed and streamed below
+        loading = filter;
+        // The fetch size only streams inside a transaction
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query("SELECT username, email FROM users", rs -> {
+            filter.add(usernameKey(rs.getString(1)));
+            filter.add(emailKey(rs.getString(2)));
+        }));
+        bits = filter;
+        loading = null;
+        logger.info("User filter loaded with {} users ({} bits, {} hashes)", count, filter.size, filter.hashes);
+    }
+
+    public boolean mightContainUsername(String username) {
+        Bits current = bits;
+        return current == null || current.mightContain(usernameKey(username));
+    }
+
+    public boolean mightContainEmail(String email) {
+        Bits current = bits;
+        return current == null || current.mightContain(emailKey(email));
+    }
+
+    // Called once the user is committed
+    public void addUser(String username, String email) {
+        for (Bits filter : new Bits[] {loading, bits}) {
+            if (filter != null) {
+                filter.add(usernameKey(username));
+                filter.add(emailKey(email));
+            }
+        }
+    }
+
+    private static String usernameKey(String username) {
+        return "u:" + username;
+    }
+
+    private static String emailKey(String email) {
+        return "e:" + email;
+    }
+
+    /**
+     * Bit array with double hashing: probe i of a value is h1 + i * h2. Adds are lock-free.
+     */
+    private static final class Bits {
+        private final AtomicLongArray words;
+        private final long size;
+        private final int hashes;
+
+        private Bits(long expectedEntries, double falsePositiveRate) {
+            long bits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) / 64));
+            this.words = new AtomicLongArray(wordCount);
+            this.size = wordCount * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) size / expectedEntries * Math.log(2)));
+        }
+
+        private void add(String value) {
+            long hash = hash(value);
+            long h1 = hash & 0xFFFFFFFFL;
+            long h2 = hash >>> 32;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, size);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                while (((current = words.get(word)) & mask) == 0
+                        && !words.compareAndSet(word, current, current | mask)) {
+                    // Retry until this bit is set
+                }
+            }
+        }
+
+        private boolean mightContain(String value) {
+            long hash = hash(value);
+            long h1 = hash & 0xFFFFFFFFL;
+            long h2 = hash >>> 32;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, size);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // FNV-1a over the UTF-16 code units, then the MurmurHash3 finalizer
+        private static long hash(String value) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                h ^= value.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb93e2fe53ce3L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -1,27 +1,45 @@
 package com.citizenact.backend.service;
 
 import com.citizenact.backend.repository.UserRepository;
+import com.citizenact.backend.security.AuthenticatedUser;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
-    public UserDetailsServiceImpl(UserRepository userRepository) {
+    public UserDetailsServiceImpl(UserRepository userRepository, PrincipalCache principalCache) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByUsername(username)
-                .map(user -> org.springframework.security.core.userdetails.User
-                        .withUsername(user.getUsername())
-                        .password(user.getPassword())
-                        .authorities("ROLE_" + user.getRole()) // Préfixe "ROLE_" pour Spring Security
-                        .build())
+        return principalCache.get(username, userRepository::findByUsername)
+                .map(user -> new AuthenticatedUser(user.getId(), user.getUsername(), user.getPassword(),
+                        user.getRole(), user.getArrondissementId(),
+                        List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole())))) // Préfixe "ROLE_" pour Spring Security
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
     }
-}
\ No newline at end of file
+
+    // Called after a successful login whose stored hash is outdated (plaintext rows included)
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        return userRepository.findByUsername(userDetails.getUsername())
+                .map(user -> {
+                    user.setPassword(newPassword);
+                    userRepository.save(user);
+                    principalCache.invalidate(user.getUsername());
+                    return loadUserByUsername(user.getUsername());
+                })
+                .orElse(userDetails);
+    }
+}
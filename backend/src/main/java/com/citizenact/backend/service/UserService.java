@@ -5,7 +5,10 @@ import com.citizenact.backend.dto.UserRequest;
 import com.citizenact.backend.entity.User;
 import com.citizenact.backend.repository.ArrondissementRepository;
 import com.citizenact.backend.repository.UserRepository;
-import org.springframework.security.core.context.SecurityContextHolder;
+import com.citizenact.backend.security.CurrentUser;
+import com.citizenact.backend.security.TokenRevocationService;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Arrays;
@@ -17,19 +20,34 @@ public class UserService {
     private final UserRepository userRepository;
     private final ArrondissementRepository arrondissementRepository;
     private final NotificationService notificationService;
+    private final AgentDirectory agentDirectory;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationService tokenRevocationService;
+    private final CurrentUser currentUser;
+    private final PasswordEncoder passwordEncoder;
+    private final UserBloomFilter userBloomFilter;
 
-    public UserService(UserRepository userRepository, ArrondissementRepository arrondissementRepository, NotificationService notificationService) {
+    public UserService(UserRepository userRepository, ArrondissementRepository arrondissementRepository, NotificationService notificationService,
+                       AgentDirectory agentDirectory, PrincipalCache principalCache, TokenRevocationService tokenRevocationService,
+                       CurrentUser currentUser, PasswordEncoder passwordEncoder,
+                       UserBloomFilter userBloomFilter) {
         this.userRepository = userRepository;
         this.arrondissementRepository = arrondissementRepository;
         this.notificationService = notificationService;
+        this.agentDirectory = agentDirectory;
+        this.principalCache = principalCache;
+        this.tokenRevocationService = tokenRevocationService;
+        this.currentUser = currentUser;
+        this.passwordEncoder = passwordEncoder;
+        this.userBloomFilter = userBloomFilter;
     }
 
     public User registerAgent(UserRequest userRequest) {
         if (userRequest.getUsername() == null || userRequest.getEmail() == null || userRequest.getPassword() == null) {
             throw new IllegalArgumentException("Invalid user registration: username, email, and password are required");
         }
-        if (userRepository.findByUsername(userRequest.getUsername()).isPresent() ||
-            userRepository.findByEmail(userRequest.getEmail()).isPresent()) {
+        if ((userBloomFilter.mightContainUsername(userRequest.getUsername()) && userRepository.findByUsername(userRequest.getUsername()).isPresent()) ||
+            (userBloomFilter.mightContainEmail(userRequest.getEmail()) && userRepository.findByEmail(userRequest.getEmail()).isPresent())) {
             throw new IllegalArgumentException("Invalid user registration: username or email already exists");
         }
         if (!"AGENT".equals(userRequest.getRole())) {
@@ -41,11 +59,18 @@ public class UserService {
         User user = new User();
         user.setUsername(userRequest.getUsername());
         user.setEmail(userRequest.getEmail());
-        user.setPassword(userRequest.getPassword());
+        user.setPassword(passwordEncoder.encode(userRequest.getPassword()));
         user.setRole("AGENT");
         user.setStatus("ACTIVE");
         user.setArrondissementId(userRequest.getArrondissementId());
-        return userRepository.save(user);
+        try {
+            user = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("Invalid user registration: username or email already exists");
+        }
+        userBloomFilter.addUser(user.getUsername(), user.getEmail());
+        agentDirectory.evict(user.getArrondissementId());
+        return user;
     }
 
     public UserDTO getUserById(Long id) {
@@ -55,20 +80,28 @@ public class UserService {
     }
 
     public User updateProfile(UserRequest userRequest) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByUsername(username)
-            .orElseThrow(() -> new IllegalArgumentException("User not found: " + username));
+        User user = userRepository.findById(currentUser.getId())
+            .orElseThrow(() -> new IllegalArgumentException("User not found: " + currentUser.getUsername()));
         if (userRequest.getEmail() != null) {
-            if (userRepository.findByEmail(userRequest.getEmail()).isPresent() &&
-                !userRequest.getEmail().equals(user.getEmail())) {
+            if (!userRequest.getEmail().equals(user.getEmail()) &&
+                userBloomFilter.mightContainEmail(userRequest.getEmail()) &&
+                userRepository.findByEmail(userRequest.getEmail()).isPresent()) {
                 throw new IllegalArgumentException("Email already in use");
             }
             user.setEmail(userRequest.getEmail());
         }
         if (userRequest.getPassword() != null) {
-            user.setPassword(userRequest.getPassword());
+            user.setPassword(passwordEncoder.encode(userRequest.getPassword()));
+            tokenRevocationService.revoke(user);
         }
-        user = userRepository.save(user);
+        try {
+            user = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("Email already in use");
+        }
+        userBloomFilter.addUser(user.getUsername(), user.getEmail());
+        principalCache.invalidate(user.getUsername());
+        tokenRevocationService.recordRevocation(user);
         if ("USER".equals(user.getRole())) {
             notificationService.createRegistrationNotification(user.getId(), "Votre profil a été mis à jour");
         }
@@ -87,7 +120,13 @@ public class UserService {
                 .orElseThrow(() -> new IllegalArgumentException("Cannot activate agent: associated arrondissement is INACTIVE or does not exist"));
         }
         user.setStatus(status);
+        tokenRevocationService.revoke(user);
         user = userRepository.save(user);
+        principalCache.invalidate(user.getUsername());
+        tokenRevocationService.recordRevocation(user);
+        if ("AGENT".equals(user.getRole()) && user.getArrondissementId() != null) {
+            agentDirectory.evict(user.getArrondissementId());
+        }
         if ("USER".equals(user.getRole())) {
             notificationService.createRegistrationNotification(user.getId(), "Votre statut a été mis à jour à : " + status);
         }
@@ -99,9 +138,13 @@ public class UserService {
         for (User agent : agents) {
             if (arrondissementStatus.equals("INACTIVE")) {
                 agent.setStatus("BLOCKED");
+                tokenRevocationService.revoke(agent);
                 userRepository.save(agent);
+                principalCache.invalidate(agent.getUsername());
+                tokenRevocationService.recordRevocation(agent);
             }
         }
+        agentDirectory.evict(arrondissementId);
     }
 
     public List<User> getUsersByRoleIn() {
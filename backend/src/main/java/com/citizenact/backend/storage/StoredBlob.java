@@ -0,0 +1,17 @@
+package com.citizenact.backend.storage;
+
+public class StoredBlob {
+    private final String hash;
+    private final long size;
+    private final String contentType;
+
+    public StoredBlob(String hash, long size, String contentType) {
+        this.hash = hash;
+        this.size = size;
+        this.contentType = contentType;
+    }
+
+    public String getHash() { return hash; }
+    public long getSize() { return size; }
+    public String getContentType() { return contentType; }
+}
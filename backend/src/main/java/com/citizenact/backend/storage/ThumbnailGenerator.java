@@ -0,0 +1,130 @@
+package com.citizenact.backend.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Optional;
+
+/**
+ * Produces downscaled JPEG previews of stored images in the background, so list screens
+ * can show small thumbnails and only fetch the original on demand.
+ */
+@Component
+public class ThumbnailGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThumbnailGenerator.class);
+    private static final long MAX_PIXELS = 50_000_000L; // Refuse decompression bombs
+    private static final float JPEG_QUALITY = 0.8f;
+
+    private final BlobStore blobStore;
+    private final int[] sizes;
+
+    public ThumbnailGenerator(BlobStore blobStore,
+                              @Value("${citizenact.storage.thumbnail-sizes:64,256,1024}") int[] sizes) {
+        this.blobStore = blobStore;
+        this.sizes = Arrays.stream(sizes).sorted().toArray();
+    }
+
+    public boolean isSupportedSize(int size) {
+        return Arrays.binarySearch(sizes, size) >= 0;
+    }
+
+    @Async("imageExecutor")
+    public void generate(String hash) {
+        Optional<Path> original = blobStore.find(hash);
+        if (original.isEmpty()) {
+            logger.warn("Cannot generate thumbnails, image {} not found", hash);
+            return;
+        }
+        try {
+            BufferedImage image = read(original.get());
+            if (image == null) {
+                logger.debug("Image {} is not a format ImageIO can decode, no thumbnails", hash);
+                return;
+            }
+            int longestSide = Math.max(image.getWidth(), image.getHeight());
+            // Largest first, each smaller variant is scaled down from the previous one
+            BufferedImage source = image;
+            for (int i = sizes.length - 1; i >= 0; i--) {
+                int size = sizes[i];
+                if (size >= longestSide || blobStore.findVariant(hash, size).isPresent()) {
+                    continue;
+                }
+                BufferedImage thumbnail = scale(source, size);
+                blobStore.storeVariant(hash, size, out -> writeJpeg(thumbnail, out));
+                source = thumbnail;
+            }
+            logger.debug("Thumbnails generated for image {}", hash);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Thumbnail generation failed for image {}: {}", hash, e.getMessage(), e);
+        }
+    }
+
+    private BufferedImage read(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_PIXELS) {
+                    logger.warn("Image {} is too large to generate thumbnails", file.getFileName());
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source, int size) {
+        double ratio = (double) size / Math.max(source.getWidth(), source.getHeight());
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static void writeJpeg(BufferedImage image, OutputStream out) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
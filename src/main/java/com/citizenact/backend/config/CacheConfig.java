@@ -0,0 +1,10 @@
+package com.citizenact.backend.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+// Caches en mémoire (Caffeine, taille et durée bornées par spring.cache.caffeine.spec)
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
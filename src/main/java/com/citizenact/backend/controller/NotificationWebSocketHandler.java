@@ -0,0 +1,27 @@
+package com.citizenact.backend.controller;
+
+import com.citizenact.backend.service.NotificationPushService;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+@Component
+public class NotificationWebSocketHandler extends TextWebSocketHandler {
+
+    private final NotificationPushService notificationPushService;
+
+    public NotificationWebSocketHandler(NotificationPushService notificationPushService) {
+        this.notificationPushService = notificationPushService;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        notificationPushService.register(session);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        notificationPushService.unregister(session);
+    }
+}
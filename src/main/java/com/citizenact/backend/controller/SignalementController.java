@@ -1,21 +1,52 @@
 package com.citizenact.backend.controller;
 
+import com.citizenact.backend.dto.ClusterDTO;
+import com.citizenact.backend.dto.CursorPage;
 import com.citizenact.backend.dto.SignalementDTO;
+import com.citizenact.backend.dto.SignalementImage;
 import com.citizenact.backend.service.SignalementService;
+import com.citizenact.backend.service.SignalementStreamService;
+import com.citizenact.backend.storage.ImageTypes;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/signalements")
 public class SignalementController {
 
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final String CONTENT_SECURITY_POLICY = "Content-Security-Policy";
+
     private final SignalementService signalementService;
+    private final SignalementStreamService signalementStreamService;
 
-    public SignalementController(SignalementService signalementService) {
+    public SignalementController(SignalementService signalementService, SignalementStreamService signalementStreamService) {
         this.signalementService = signalementService;
+        this.signalementStreamService = signalementStreamService;
     }
 
     @PostMapping
@@ -23,9 +54,29 @@ public class SignalementController {
         return ResponseEntity.ok(signalementService.createSignalement(signalementDTO));
     }
 
+    // Upload multipart : partie JSON "signalement" + fichier "image" transmis en binaire
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<SignalementDTO> createSignalementMultipart(
+            @RequestPart("signalement") SignalementDTO signalementDTO,
+            @RequestPart(value = "image", required = false) MultipartFile image) throws IOException {
+        if (image == null || image.isEmpty()) {
+            return ResponseEntity.ok(signalementService.createSignalement(signalementDTO, null));
+        }
+        try (InputStream in = image.getInputStream()) {
+            return ResponseEntity.ok(signalementService.createSignalement(signalementDTO, in));
+        }
+    }
+
     @GetMapping
-    public ResponseEntity<List<SignalementDTO>> getAllSignalements() {
-        return ResponseEntity.ok(signalementService.getAllSignalements());
+    public ResponseEntity<List<SignalementDTO>> getAllSignalements(@RequestParam(required = false) String cursor,
+                                                                   @RequestParam(required = false) Integer limit) {
+        CursorPage<SignalementDTO> page = signalementService.getAllSignalements(cursor, limit);
+        return ResponseEntity.ok().headers(page.toHeaders()).body(page.getItems());
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSignalementEvents() {
+        return signalementStreamService.openUserStream();
     }
 
     @GetMapping("/user/{username}")
@@ -34,8 +85,51 @@ public class SignalementController {
     }
 
     @GetMapping("/arrondissement/{id}")
-    public ResponseEntity<List<SignalementDTO>> getSignalementsByArrondissement(@PathVariable Long id) {
-        return ResponseEntity.ok(signalementService.getSignalementsByArrondissementId(id));
+    public ResponseEntity<List<SignalementDTO>> getSignalementsByArrondissement(@PathVariable Long id,
+                                                                                @RequestParam(required = false) String cursor,
+                                                                                @RequestParam(required = false) Integer limit) {
+        CursorPage<SignalementDTO> page = signalementService.getSignalementsByArrondissementId(id, cursor, limit);
+        return ResponseEntity.ok().headers(page.toHeaders()).body(page.getItems());
+    }
+
+    // Map viewport: ?bbox=minLon,minLat,maxLon,maxLat, or ?lat=&lon=&radius= with the radius in meters
+    @GetMapping("/within")
+    public ResponseEntity<List<SignalementDTO>> getSignalementsWithin(@RequestParam(required = false) String bbox,
+                                                                      @RequestParam(required = false) Double lat,
+                                                                      @RequestParam(required = false) Double lon,
+                                                                      @RequestParam(required = false) Double radius,
+                                                                      @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(signalementService.getSignalementsWithin(bbox, lat, lon, radius, limit));
+    }
+
+    // Map markers grouped per zoom level, same bbox format as /within
+    @GetMapping("/clusters")
+    public ResponseEntity<List<ClusterDTO>> getClusters(@RequestParam String bbox, @RequestParam int zoom) {
+        return ResponseEntity.ok(signalementService.getClusters(bbox, zoom));
+    }
+
+    @GetMapping("/{id}/image")
+    public void getSignalementImage(@PathVariable Long id, @RequestParam(required = false) Integer size,
+                                    HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<SignalementImage> image = signalementService.getSignalementImage(id, size);
+        if (image.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        // Only sniffed image types reach this point; the headers keep a browser from running the file as a page
+        response.setContentType(image.get().getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline()
+                .filename("signalement-" + id + "." + ImageTypes.extension(image.get().getContentType())).build().toString());
+        response.setHeader(CONTENT_SECURITY_POLICY, "default-src 'none'; sandbox");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.maxAge(1, TimeUnit.DAYS).cachePrivate().getHeaderValue());
+        if (image.get().getFile() != null) {
+            sendFile(image.get().getFile(), request, response);
+        } else {
+            byte[] data = image.get().getData();
+            response.setContentLength(data.length);
+            response.getOutputStream().write(data);
+        }
     }
 
     @PutMapping("/{id}/traitement-status")
@@ -43,4 +137,24 @@ public class SignalementController {
                                                                 @RequestBody Map<String, String> request) {
         return ResponseEntity.ok(signalementService.updateTraitementStatus(id, request.get("traitementStatus")));
     }
+
+    // Image files never pass through the JVM heap: Tomcat's sendfile hands them to the kernel,
+    // otherwise FileChannel.transferTo copies them to the socket in small chunks.
+    private void sendFile(Path file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long size = Files.size(file);
+        response.setContentLengthLong(size);
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, out);
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.citizenact.backend.dto;
+
+/**
+ * A group of signalements shown as one marker on the map: their count and centroid.
+ */
+public class ClusterDTO {
+    private double latitude;
+    private double longitude;
+    private int count;
+    private int pendingCount; // Still "En attente"
+
+    public ClusterDTO() {
+    }
+
+    public ClusterDTO(double latitude, double longitude, int count, int pendingCount) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.count = count;
+        this.pendingCount = pendingCount;
+    }
+
+    // Getters and Setters
+    public double getLatitude() { return latitude; }
+    public void setLatitude(double latitude) { this.latitude = latitude; }
+    public double getLongitude() { return longitude; }
+    public void setLongitude(double longitude) { this.longitude = longitude; }
+    public int getCount() { return count; }
+    public void setCount(int count) { this.count = count; }
+    public int getPendingCount() { return pendingCount; }
+    public void setPendingCount(int pendingCount) { this.pendingCount = pendingCount; }
+}
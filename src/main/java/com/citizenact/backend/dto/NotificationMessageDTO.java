@@ -0,0 +1,29 @@
+package com.citizenact.backend.dto;
+
+import java.util.List;
+
+/**
+ * Frame sent on the notification WebSocket: the backlog once on connect, then one
+ * frame per new notification.
+ */
+public class NotificationMessageDTO {
+    public static final String BACKLOG = "backlog";
+    public static final String NOTIFICATION = "notification";
+
+    private String type;
+    private List<NotificationDTO> notifications;
+
+    public NotificationMessageDTO() {
+    }
+
+    public NotificationMessageDTO(String type, List<NotificationDTO> notifications) {
+        this.type = type;
+        this.notifications = notifications;
+    }
+
+    // Getters and Setters
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    public List<NotificationDTO> getNotifications() { return notifications; }
+    public void setNotifications(List<NotificationDTO> notifications) { this.notifications = notifications; }
+}
@@ -11,6 +11,7 @@ public class SignalementDTO {
     private String title;
     private String description;
     private String imageBase64;
+    private Boolean hasImage;
     private Double latitude;
     private Double longitude;
     private String traitementStatus;
@@ -34,6 +35,8 @@ public class SignalementDTO {
     public void setDescription(String description) { this.description = description; }
     public String getImageBase64() { return imageBase64; }
     public void setImageBase64(String imageBase64) { this.imageBase64 = imageBase64; }
+    public Boolean getHasImage() { return hasImage; }
+    public void setHasImage(Boolean hasImage) { this.hasImage = hasImage; }
     public Double getLatitude() { return latitude; }
     public void setLatitude(Double latitude) { this.latitude = latitude; }
     public Double getLongitude() { return longitude; }
@@ -0,0 +1,31 @@
+package com.citizenact.backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Changes visible to the caller since its last sync token. When {@code reset} is true the
+ * token is unknown or too old: the client must reload its lists, then sync from {@code token}.
+ */
+public class SyncDTO {
+    private String token;
+    private boolean reset;
+    private boolean hasMore;
+    private List<SignalementDTO> signalements = new ArrayList<>();
+    private List<NotificationDTO> notifications = new ArrayList<>();
+    private List<Long> deletedNotificationIds = new ArrayList<>();
+
+    // Getters and Setters
+    public String getToken() { return token; }
+    public void setToken(String token) { this.token = token; }
+    public boolean isReset() { return reset; }
+    public void setReset(boolean reset) { this.reset = reset; }
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+    public List<SignalementDTO> getSignalements() { return signalements; }
+    public void setSignalements(List<SignalementDTO> signalements) { this.signalements = signalements; }
+    public List<NotificationDTO> getNotifications() { return notifications; }
+    public void setNotifications(List<NotificationDTO> notifications) { this.notifications = notifications; }
+    public List<Long> getDeletedNotificationIds() { return deletedNotificationIds; }
+    public void setDeletedNotificationIds(List<Long> deletedNotificationIds) { this.deletedNotificationIds = deletedNotificationIds; }
+}
@@ -1,5 +1,6 @@
 package com.citizenact.backend.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 public class UserDTO {
@@ -26,6 +27,15 @@ public class UserDTO {
     @JsonProperty("createdAt")
     private String createdAt; // ISO 8601 format, e.g., "2025-06-24T22:16:00Z"
 
+    // Only set by /api/auth/login: bearer token and its lifetime in seconds
+    @JsonProperty("token")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String token;
+
+    @JsonProperty("expiresIn")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long expiresIn;
+
     // Getters and setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -43,4 +53,8 @@ public class UserDTO {
     public void setArrondissementId(Long arrondissementId) { this.arrondissementId = arrondissementId; }
     public String getCreatedAt() { return createdAt; }
     public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+    public String getToken() { return token; }
+    public void setToken(String token) { this.token = token; }
+    public Long getExpiresIn() { return expiresIn; }
+    public void setExpiresIn(Long expiresIn) { this.expiresIn = expiresIn; }
 }
\ No newline at end of file
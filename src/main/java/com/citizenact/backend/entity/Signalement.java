@@ -1,10 +1,16 @@
 package com.citizenact.backend.entity;
 
+import com.citizenact.backend.geo.GeoHash;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "signalements")
+@Table(name = "signalements", indexes = {
+        @Index(name = "idx_signalements_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_signalements_arrondissement_created_at_id", columnList = "arrondissement_id, created_at, id"),
+        @Index(name = "idx_signalements_geohash", columnList = "geohash"),
+        @Index(name = "idx_signalements_image_sha256", columnList = "image_sha256")
+})
 public class Signalement {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -25,12 +31,25 @@ public class Signalement {
     @Column(name = "image_base64")
     private String imageBase64;
 
+    @Column(name = "image_sha256", length = 64)
+    private String imageHash;
+
+    @Column(name = "image_content_type")
+    private String imageContentType;
+
+    @Column(name = "image_size")
+    private Long imageSize;
+
     @Column(name = "latitude", nullable = false)
     private Double latitude;
 
     @Column(name = "longitude", nullable = false)
     private Double longitude;
 
+    // Geohash entier de (latitude, longitude), pour les requêtes de carte
+    @Column(name = "geohash")
+    private Long geohash;
+
     @Column(name = "traitement_status", nullable = false)
     private String traitementStatus;
 
@@ -40,6 +59,12 @@ public class Signalement {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    @PrePersist
+    @PreUpdate
+    protected void computeGeohash() {
+        geohash = latitude != null && longitude != null ? GeoHash.encode(latitude, longitude) : null;
+    }
+
     // Getters et Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -53,10 +78,17 @@ public class Signalement {
     public void setDescription(String description) { this.description = description; }
     public String getImageBase64() { return imageBase64; }
     public void setImageBase64(String imageBase64) { this.imageBase64 = imageBase64; }
+    public String getImageHash() { return imageHash; }
+    public void setImageHash(String imageHash) { this.imageHash = imageHash; }
+    public String getImageContentType() { return imageContentType; }
+    public void setImageContentType(String imageContentType) { this.imageContentType = imageContentType; }
+    public Long getImageSize() { return imageSize; }
+    public void setImageSize(Long imageSize) { this.imageSize = imageSize; }
     public Double getLatitude() { return latitude; }
     public void setLatitude(Double latitude) { this.latitude = latitude; }
     public Double getLongitude() { return longitude; }
     public void setLongitude(Double longitude) { this.longitude = longitude; }
+    public Long getGeohash() { return geohash; }
     public String getTraitementStatus() { return traitementStatus; }
     public void setTraitementStatus(String traitementStatus) { this.traitementStatus = traitementStatus; }
     public String getReceptionStatus() { return receptionStatus; }
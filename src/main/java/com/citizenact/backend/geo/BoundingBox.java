@@ -0,0 +1,50 @@
+package com.citizenact.backend.geo;
+
+/**
+ * A latitude/longitude box, parsed from the "minLon,minLat,maxLon,maxLat" form used by
+ * GeoJSON and most map clients.
+ */
+public final class BoundingBox {
+    private final double minLatitude;
+    private final double minLongitude;
+    private final double maxLatitude;
+    private final double maxLongitude;
+
+    public BoundingBox(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        // Written so that NaN fails too
+        if (!(minLatitude >= -90 && maxLatitude <= 90 && minLongitude >= -180 && maxLongitude <= 180)) {
+            throw new IllegalArgumentException("Bounding box is outside valid coordinates");
+        }
+        if (minLatitude > maxLatitude) {
+            throw new IllegalArgumentException("Bounding box minimum latitude is above its maximum");
+        }
+        if (minLongitude > maxLongitude) {
+            throw new IllegalArgumentException("Bounding boxes crossing the antimeridian are not supported");
+        }
+        this.minLatitude = minLatitude;
+        this.minLongitude = minLongitude;
+        this.maxLatitude = maxLatitude;
+        this.maxLongitude = maxLongitude;
+    }
+
+    public static BoundingBox parse(String bbox) {
+        String[] parts = bbox.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("bbox must be minLon,minLat,maxLon,maxLat");
+        }
+        double[] values = new double[4];
+        try {
+            for (int i = 0; i < 4; i++) {
+                values[i] = Double.parseDouble(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid bbox: " + bbox);
+        }
+        return new BoundingBox(values[1], values[0], values[3], values[2]);
+    }
+
+    public double getMinLatitude() { return minLatitude; }
+    public double getMinLongitude() { return minLongitude; }
+    public double getMaxLatitude() { return maxLatitude; }
+    public double getMaxLongitude() { return maxLongitude; }
+}
@@ -0,0 +1,82 @@
+package com.citizenact.backend.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Integer geohash: the position quantized to {@link #BITS_PER_AXIS} bits per axis, with the
+ * longitude and latitude bits interleaved (longitude first) as in a textual geohash. Every
+ * geohash cell is therefore one contiguous range of values, and a bounding box is covered by
+ * a handful of ranges that a B-tree index answers directly.
+ */
+public final class GeoHash {
+
+    public static final int BITS_PER_AXIS = 26; // About 0.6 m at the equator
+
+    private GeoHash() {
+    }
+
+    public static long encode(double latitude, double longitude) {
+        return interleave(cell(longitude, 180, BITS_PER_AXIS), cell(latitude, 90, BITS_PER_AXIS));
+    }
+
+    /**
+     * Value ranges, inclusive and merged, whose cells cover the box. The finest level whose
+     * cover needs at most {@code maxCells} cells is used.
+     */
+    public static List<long[]> cover(double minLat, double minLon, double maxLat, double maxLon, int maxCells) {
+        int bits = BITS_PER_AXIS;
+        while (bits > 0 && cellCount(minLat, minLon, maxLat, maxLon, bits) > maxCells) {
+            bits--;
+        }
+        long minX = cell(minLon, 180, bits), maxX = cell(maxLon, 180, bits);
+        long minY = cell(minLat, 90, bits), maxY = cell(maxLat, 90, bits);
+        int shift = 2 * (BITS_PER_AXIS - bits);
+        List<Long> prefixes = new ArrayList<>();
+        for (long x = minX; x <= maxX; x++) {
+            for (long y = minY; y <= maxY; y++) {
+                prefixes.add(interleave(x, y));
+            }
+        }
+        prefixes.sort(null);
+        List<long[]> ranges = new ArrayList<>();
+        for (long prefix : prefixes) {
+            long low = prefix << shift;
+            long high = ((prefix + 1) << shift) - 1;
+            long[] last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+            if (last != null && last[1] + 1 == low) {
+                last[1] = high;
+            } else {
+                ranges.add(new long[] {low, high});
+            }
+        }
+        return ranges;
+    }
+
+    private static long cellCount(double minLat, double minLon, double maxLat, double maxLon, int bits) {
+        return (cell(maxLon, 180, bits) - cell(minLon, 180, bits) + 1)
+                * (cell(maxLat, 90, bits) - cell(minLat, 90, bits) + 1);
+    }
+
+    // Index of the cell holding the value on an axis spanning [-range, range]
+    static long cell(double value, double range, int bits) {
+        long cells = 1L << bits;
+        long index = (long) Math.floor((value + range) / (2 * range) * cells);
+        return Math.max(0, Math.min(cells - 1, index));
+    }
+
+    static long interleave(long x, long y) {
+        return (spread(x) << 1) | spread(y);
+    }
+
+    // Moves bit i of the value to bit 2i
+    private static long spread(long value) {
+        value &= 0xFFFFFFFFL;
+        value = (value | (value << 16)) & 0x0000FFFF0000FFFFL;
+        value = (value | (value << 8)) & 0x00FF00FF00FF00FFL;
+        value = (value | (value << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        value = (value | (value << 2)) & 0x3333333333333333L;
+        value = (value | (value << 1)) & 0x5555555555555555L;
+        return value;
+    }
+}
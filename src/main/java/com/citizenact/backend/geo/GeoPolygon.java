@@ -0,0 +1,119 @@
+package com.citizenact.backend.geo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A GeoJSON Polygon or MultiPolygon flattened into primitive arrays. Each ring is a
+ * {@code double[]} of alternating longitude, latitude values; the first ring of a polygon is
+ * its outer boundary and the others are holes.
+ */
+public final class GeoPolygon {
+
+    private final List<double[][]> polygons; // Rings of each polygon
+    private final double minLon;
+    private final double minLat;
+    private final double maxLon;
+    private final double maxLat;
+
+    private GeoPolygon(List<double[][]> polygons) {
+        this.polygons = polygons;
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (double[][] rings : polygons) {
+            double[] outer = rings[0];
+            for (int i = 0; i < outer.length; i += 2) {
+                minX = Math.min(minX, outer[i]);
+                maxX = Math.max(maxX, outer[i]);
+                minY = Math.min(minY, outer[i + 1]);
+                maxY = Math.max(maxY, outer[i + 1]);
+            }
+        }
+        this.minLon = minX;
+        this.minLat = minY;
+        this.maxLon = maxX;
+        this.maxLat = maxY;
+    }
+
+    public static GeoPolygon parse(JsonNode geoJson) {
+        String type = geoJson.path("type").asText();
+        JsonNode coordinates = geoJson.path("coordinates");
+        List<double[][]> polygons = new ArrayList<>();
+        if ("Polygon".equals(type)) {
+            polygons.add(rings(coordinates));
+        } else if ("MultiPolygon".equals(type)) {
+            for (JsonNode polygon : coordinates) {
+                polygons.add(rings(polygon));
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported GeoJSON type: " + type);
+        }
+        if (polygons.isEmpty()) {
+            throw new IllegalArgumentException("GeoJSON has no polygon");
+        }
+        return new GeoPolygon(polygons);
+    }
+
+    private static double[][] rings(JsonNode polygon) {
+        if (!polygon.isArray() || polygon.isEmpty()) {
+            throw new IllegalArgumentException("Polygon has no ring");
+        }
+        double[][] rings = new double[polygon.size()][];
+        for (int r = 0; r < rings.length; r++) {
+            JsonNode ring = polygon.get(r);
+            if (ring.size() < 4) {
+                throw new IllegalArgumentException("Ring must have at least 4 points");
+            }
+            double[] points = new double[ring.size() * 2];
+            for (int i = 0; i < ring.size(); i++) {
+                JsonNode point = ring.get(i);
+                if (point.size() < 2 || !point.get(0).isNumber() || !point.get(1).isNumber()) {
+                    throw new IllegalArgumentException("Invalid position in ring");
+                }
+                points[2 * i] = point.get(0).asDouble();
+                points[2 * i + 1] = point.get(1).asDouble();
+            }
+            rings[r] = points;
+        }
+        return rings;
+    }
+
+    public boolean contains(double lon, double lat) {
+        if (lon < minLon || lon > maxLon || lat < minLat || lat > maxLat) {
+            return false;
+        }
+        for (double[][] rings : polygons) {
+            if (inRing(rings[0], lon, lat)) {
+                boolean inHole = false;
+                for (int h = 1; h < rings.length && !inHole; h++) {
+                    inHole = inRing(rings[h], lon, lat);
+                }
+                if (!inHole) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Even-odd ray casting towards +longitude
+    private static boolean inRing(double[] ring, double x, double y) {
+        boolean inside = false;
+        int n = ring.length;
+        for (int i = 0, j = n - 2; i < n; j = i, i += 2) {
+            double xi = ring[i], yi = ring[i + 1];
+            double xj = ring[j], yj = ring[j + 1];
+            if ((yi > y) != (yj > y) && x < (xj - xi) * (y - yi) / (yj - yi) + xi) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    public double getMinLon() { return minLon; }
+    public double getMinLat() { return minLat; }
+    public double getMaxLon() { return maxLon; }
+    public double getMaxLat() { return maxLat; }
+}
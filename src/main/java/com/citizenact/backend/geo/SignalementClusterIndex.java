@@ -0,0 +1,279 @@
+package com.citizenact.backend.geo;
+
+import com.citizenact.backend.dto.ClusterDTO;
+import com.citizenact.backend.entity.Signalement;
+import com.citizenact.backend.repository.ChangeLogRepository;
+import com.citizenact.backend.service.ChangeLogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hierarchical grid of signalement counts for map clustering. Each arrondissement has one
+ * grid per level, level b splitting each axis into 2^b cells; a cell keeps the count, the
+ * pending count and the coordinate sums of its signalements, so a cluster's centroid is
+ * read without touching the points. Grids are sized by the area covered, not by the number
+ * of signalements.
+ *
+ * <p>Loaded once at startup, then kept current by the writes of this instance and by polling
+ * the change log for the writes of the others. Which signalements are counted, and which are
+ * pending, is tracked per id, so applying the same change twice is harmless.
+ */
+@Component
+public class SignalementClusterIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignalementClusterIndex.class);
+    private static final int MIN_BITS = 2;
+    private static final int MAX_BITS = 18; // Cells of about 150 m, closer views use /within
+    private static final int MAX_VIEWPORT_CELLS = 4096;
+    private static final int FETCH_SIZE = 1000;
+    private static final String PENDING_STATUS = "En attente";
+    private static final String SELECT_POINTS =
+            "SELECT id, arrondissement_id, latitude, longitude, traitement_status FROM signalements";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeLogRepository changeLogRepository;
+    private final ChangeLogService changeLogService;
+    private final TaskExecutor maintenanceExecutor;
+    private volatile State state = new State();
+    private volatile boolean loaded;
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    private long loadedUpTo; // The index reflects the change log below this tx_id, guarded by this
+
+    public SignalementClusterIndex(JdbcTemplate jdbcTemplate, DataSource dataSource,
+                                   TransactionTemplate transactionTemplate, ChangeLogRepository changeLogRepository,
+                                   ChangeLogService changeLogService,
+                                   @Qualifier("maintenanceExecutor") TaskExecutor maintenanceExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.transactionTemplate = transactionTemplate;
+        this.changeLogRepository = changeLogRepository;
+        this.changeLogService = changeLogService;
+        this.maintenanceExecutor = maintenanceExecutor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        // Changes of transactions still running now are replayed by refresh()
+        long upTo = changeLogRepository.findVisibleUpToTxId();
+        State loading = new State();
+        JdbcTemplate streaming = new JdbcTemplate(dataSource);
+        streaming.setFetchSize(FETCH_SIZE);
+        // The fetch size only streams inside a transaction
+        transactionTemplate.executeWithoutResult(status -> streaming.query(SELECT_POINTS, rs -> {
+            loading.apply(rs.getLong(1), rs.getLong(2), rs.getDouble(3), rs.getDouble(4),
+                    PENDING_STATUS.equals(rs.getString(5)));
+        }));
+        synchronized (this) {
+            state = loading;
+            loadedUpTo = upTo;
+            loaded = true;
+        }
+        logger.info("Cluster index loaded with {} signalements", loading.counted.cardinality());
+    }
+
+    // Changes committed by other instances, or missed while loading
+    @Scheduled(fixedDelayString = "${citizenact.geo.cluster-refresh-ms:1000}")
+    public void refresh() {
+        if (!loaded) {
+            return;
+        }
+        long since;
+        synchronized (this) {
+            since = loadedUpTo;
+        }
+        if (since <= changeLogService.getPrunedThroughTxId()) {
+            // Streaming the whole table would hold a scheduler thread, queries keep the current grid meanwhile
+            if (reloading.compareAndSet(false, true)) {
+                logger.warn("Cluster index fell behind the change log retention, reloading");
+                try {
+                    maintenanceExecutor.execute(() -> {
+                        try {
+                            load();
+                        } finally {
+                            reloading.set(false);
+                        }
+                    });
+                } catch (TaskRejectedException e) {
+                    logger.warn("Cluster index reload rejected, retrying on the next refresh");
+                    reloading.set(false);
+                }
+            }
+            return;
+        }
+        long upTo = changeLogRepository.findVisibleUpToTxId();
+        if (upTo <= since) {
+            return;
+        }
+        List<Object[]> rows = jdbcTemplate.query(SELECT_POINTS + " WHERE id IN (SELECT entity_id FROM change_log"
+                        + " WHERE tx_id >= ? AND tx_id < ? AND entity_type = 'SIGNALEMENT')",
+                SignalementClusterIndex::point, since, upTo);
+        synchronized (this) {
+            for (Object[] row : rows) {
+                state.apply((Long) row[0], (Long) row[1], (Double) row[2], (Double) row[3], (Boolean) row[4]);
+            }
+            loadedUpTo = Math.max(loadedUpTo, upTo);
+        }
+    }
+
+    // Called once the signalement's creation or status change has committed
+    public synchronized void apply(Signalement signalement) {
+        state.apply(signalement.getId(), signalement.getArrondissementId(), signalement.getLatitude(),
+                signalement.getLongitude(), PENDING_STATUS.equals(signalement.getTraitementStatus()));
+    }
+
+    /**
+     * Clusters of the signalements inside the box at the given zoom level, restricted to one
+     * arrondissement when {@code arrondissementId} is not null.
+     */
+    public List<ClusterDTO> findClusters(BoundingBox box, int zoom, Long arrondissementId) {
+        int bits = Math.max(MIN_BITS, Math.min(MAX_BITS, zoom + 2)); // About 4 cells per 256 px tile
+        while (bits > MIN_BITS && viewportCells(box, bits) > MAX_VIEWPORT_CELLS) {
+            bits--;
+        }
+        State current = state;
+        Collection<Grid> grids;
+        if (arrondissementId != null) {
+            Grid grid = current.grids.get(arrondissementId);
+            grids = grid == null ? List.of() : List.of(grid);
+        } else {
+            grids = current.grids.values();
+        }
+
+        long minX = GeoHash.cell(box.getMinLongitude(), 180, bits), maxX = GeoHash.cell(box.getMaxLongitude(), 180, bits);
+        long minY = GeoHash.cell(box.getMinLatitude(), 90, bits), maxY = GeoHash.cell(box.getMaxLatitude(), 90, bits);
+        // Cells of different arrondissements that share a key make one cluster
+        Map<Long, Cell> cells = new HashMap<>();
+        for (Grid grid : grids) {
+            Map<Long, Cell> level = grid.levels.get(bits - MIN_BITS);
+            if ((maxX - minX + 1) * (maxY - minY + 1) <= level.size()) {
+                for (long x = minX; x <= maxX; x++) {
+                    for (long y = minY; y <= maxY; y++) {
+                        Cell cell = level.get(key(x, y));
+                        if (cell != null) {
+                            cells.merge(key(x, y), cell, Cell::plus);
+                        }
+                    }
+                }
+            } else {
+                level.forEach((key, cell) -> {
+                    long x = key >>> 32, y = key & 0xFFFFFFFFL;
+                    if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                        cells.merge(key, cell, Cell::plus);
+                    }
+                });
+            }
+        }
+
+        List<ClusterDTO> clusters = new ArrayList<>(cells.size());
+        for (Cell cell : cells.values()) {
+            clusters.add(new ClusterDTO(cell.sumLatitude / cell.count, cell.sumLongitude / cell.count,
+                    cell.count, cell.pending));
+        }
+        return clusters;
+    }
+
+    private static long viewportCells(BoundingBox box, int bits) {
+        return (GeoHash.cell(box.getMaxLongitude(), 180, bits) - GeoHash.cell(box.getMinLongitude(), 180, bits) + 1)
+                * (GeoHash.cell(box.getMaxLatitude(), 90, bits) - GeoHash.cell(box.getMinLatitude(), 90, bits) + 1);
+    }
+
+    private static long key(long x, long y) {
+        return (x << 32) | y;
+    }
+
+    private static Object[] point(ResultSet rs, int rowNum) throws SQLException {
+        return new Object[] {rs.getLong(1), rs.getLong(2), rs.getDouble(3), rs.getDouble(4),
+                PENDING_STATUS.equals(rs.getString(5))};
+    }
+
+    // Mutated under the index's lock (or before being published), read without it
+    private static final class State {
+        private final BitSet counted = new BitSet(); // Ids are dense identity values
+        private final BitSet pending = new BitSet();
+        private final Map<Long, Grid> grids = new ConcurrentHashMap<>();
+
+        private void apply(long id, long arrondissementId, double latitude, double longitude, boolean isPending) {
+            int index = Math.toIntExact(id);
+            Grid grid = grids.computeIfAbsent(arrondissementId, k -> new Grid());
+            if (!counted.get(index)) {
+                counted.set(index);
+                pending.set(index, isPending);
+                grid.add(latitude, longitude, isPending);
+            } else if (pending.get(index) != isPending) {
+                pending.set(index, isPending);
+                grid.changePending(latitude, longitude, isPending ? 1 : -1);
+            }
+        }
+    }
+
+    private static final class Grid {
+        private final List<Map<Long, Cell>> levels = new ArrayList<>(MAX_BITS - MIN_BITS + 1);
+
+        private Grid() {
+            for (int bits = MIN_BITS; bits <= MAX_BITS; bits++) {
+                levels.add(new ConcurrentHashMap<>());
+            }
+        }
+
+        private void add(double latitude, double longitude, boolean isPending) {
+            Cell point = new Cell(1, isPending ? 1 : 0, latitude, longitude);
+            for (int bits = MIN_BITS; bits <= MAX_BITS; bits++) {
+                levels.get(bits - MIN_BITS).merge(cellKey(latitude, longitude, bits), point, Cell::plus);
+            }
+        }
+
+        private void changePending(double latitude, double longitude, int delta) {
+            for (int bits = MIN_BITS; bits <= MAX_BITS; bits++) {
+                levels.get(bits - MIN_BITS).computeIfPresent(cellKey(latitude, longitude, bits),
+                        (key, cell) -> new Cell(cell.count, cell.pending + delta, cell.sumLatitude, cell.sumLongitude));
+            }
+        }
+
+        private static long cellKey(double latitude, double longitude, int bits) {
+            return key(GeoHash.cell(longitude, 180, bits), GeoHash.cell(latitude, 90, bits));
+        }
+    }
+
+    // Immutable, replaced as a whole so readers never see a half-applied update
+    private static final class Cell {
+        private final int count;
+        private final int pending;
+        private final double sumLatitude;
+        private final double sumLongitude;
+
+        private Cell(int count, int pending, double sumLatitude, double sumLongitude) {
+            this.count = count;
+            this.pending = pending;
+            this.sumLatitude = sumLatitude;
+            this.sumLongitude = sumLongitude;
+        }
+
+        private Cell plus(Cell other) {
+            return new Cell(count + other.count, pending + other.pending,
+                    sumLatitude + other.sumLatitude, sumLongitude + other.sumLongitude);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.citizenact.backend.geo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Map queries over the indexed signalements.geohash column. A box is turned into at most
+ * {@link #MAX_CELLS} geohash ranges, each an index range scan; the exact box, the radius and
+ * the role scoping are then checked on the matching rows only.
+ */
+@Component
+public class SignalementGeoIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignalementGeoIndex.class);
+    private static final int MAX_CELLS = 16;
+    private static final int BACKFILL_CHUNK_SIZE = 1000;
+    private static final double EARTH_RADIUS_METERS = 6_371_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SignalementGeoIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Rows created before the geohash column existed
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int total = 0;
+        List<Object[]> updates;
+        do {
+            updates = jdbcTemplate.query("SELECT id, latitude, longitude FROM signalements WHERE geohash IS NULL LIMIT ?",
+                    (rs, rowNum) -> new Object[] {GeoHash.encode(rs.getDouble(2), rs.getDouble(3)), rs.getLong(1)},
+                    BACKFILL_CHUNK_SIZE);
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate("UPDATE signalements SET geohash = ? WHERE id = ?", updates);
+                total += updates.size();
+            }
+        } while (updates.size() == BACKFILL_CHUNK_SIZE);
+        if (total > 0) {
+            logger.info("Computed the geohash of {} signalements", total);
+        }
+    }
+
+    /**
+     * Ids of the newest signalements inside the box, and within {@code radiusMeters} of the
+     * centre when it is given, restricted to one arrondissement when {@code arrondissementId}
+     * is not null.
+     */
+    public List<Long> findIdsWithin(BoundingBox box, Double centerLatitude, Double centerLongitude, Double radiusMeters,
+                                    Long arrondissementId, int limit) {
+        List<long[]> ranges = GeoHash.cover(box.getMinLatitude(), box.getMinLongitude(),
+                box.getMaxLatitude(), box.getMaxLongitude(), MAX_CELLS);
+        StringBuilder sql = new StringBuilder("SELECT s.id FROM signalements s WHERE (");
+        List<Object> args = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            sql.append(i == 0 ? "" : " OR ").append("s.geohash BETWEEN ? AND ?");
+            args.add(ranges.get(i)[0]);
+            args.add(ranges.get(i)[1]);
+        }
+        sql.append(") AND s.latitude BETWEEN ? AND ? AND s.longitude BETWEEN ? AND ?");
+        args.add(box.getMinLatitude());
+        args.add(box.getMaxLatitude());
+        args.add(box.getMinLongitude());
+        args.add(box.getMaxLongitude());
+        if (radiusMeters != null) {
+            // Haversine distance
+            sql.append(" AND 2 * ? * asin(sqrt(power(sin(radians(s.latitude - ?) / 2), 2)"
+                    + " + cos(radians(?)) * cos(radians(s.latitude)) * power(sin(radians(s.longitude - ?) / 2), 2))) <= ?");
+            args.add(EARTH_RADIUS_METERS);
+            args.add(centerLatitude);
+            args.add(centerLatitude);
+            args.add(centerLongitude);
+            args.add(radiusMeters);
+        }
+        if (arrondissementId != null) {
+            sql.append(" AND s.arrondissement_id = ?");
+            args.add(arrondissementId);
+        }
+        sql.append(" ORDER BY s.created_at DESC, s.id DESC LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.queryForList(sql.toString(), Long.class, args.toArray());
+    }
+
+    /** The box around a circle, clamped to valid coordinates. */
+    public static BoundingBox aroundCircle(double latitude, double longitude, double radiusMeters) {
+        double latDelta = Math.toDegrees(radiusMeters / EARTH_RADIUS_METERS);
+        double cosLat = Math.cos(Math.toRadians(latitude));
+        double lonDelta = cosLat < 1e-9 ? 180 : Math.min(180, latDelta / cosLat);
+        return new BoundingBox(Math.max(-90, latitude - latDelta), Math.max(-180, longitude - lonDelta),
+                Math.min(90, latitude + latDelta), Math.min(180, longitude + lonDelta));
+    }
+}
@@ -0,0 +1,27 @@
+package com.citizenact.backend.repository;
+
+import com.citizenact.backend.entity.ChangeLogEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+
+    // Range scan on (tx_id, id) from the client's position up to the visible bound
+    @Query("select c from ChangeLogEntry c where (c.txId > :sinceTxId or (c.txId = :sinceTxId and c.id > :sinceId)) " +
+            "and c.txId < :upToTxId " +
+            "and ((c.entityType = 'SIGNALEMENT' and (:arrondissementId is null or c.arrondissementId = :arrondissementId)) " +
+            "or (c.entityType = 'NOTIFICATION' and c.userId = :userId)) order by c.txId, c.id")
+    List<ChangeLogEntry> findVisibleChanges(@Param("sinceTxId") Long sinceTxId, @Param("sinceId") Long sinceId,
+                                            @Param("upToTxId") Long upToTxId,
+                                            @Param("arrondissementId") Long arrondissementId,
+                                            @Param("userId") Long userId, Limit limit);
+
+    // Every transaction below the snapshot's xmin has committed or rolled back: the entries with
+    // a smaller tx_id are all visible, and no new one can appear. Commit order, not JVM clocks.
+    @Query(value = "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint", nativeQuery = true)
+    long findVisibleUpToTxId();
+}
@@ -1,9 +1,81 @@
 package com.citizenact.backend.repository;
 
+import com.citizenact.backend.entity.ChangeLogEntry;
 import com.citizenact.backend.entity.Notification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
+
+    // Change log entries of the rows returned by a "changed" CTE, written by the same statement
+    String RECORD_CHANGES_UPSERT = "INSERT INTO change_log (entity_type, entity_id, operation, user_id, created_at) " +
+            "SELECT '" + ChangeLogEntry.NOTIFICATION + "', id, '" + ChangeLogEntry.UPSERT + "', user_id, now() FROM changed";
+    String RECORD_CHANGES_DELETE = "INSERT INTO change_log (entity_type, entity_id, operation, user_id, created_at) " +
+            "SELECT '" + ChangeLogEntry.NOTIFICATION + "', id, '" + ChangeLogEntry.DELETE + "', user_id, now() FROM changed";
+
     List<Notification> findByUserId(Long userId);
-}
\ No newline at end of file
+
+    // Keyset pages of a user's feed, newest first; the unread variants seek straight into
+    // the (user_id, is_read, created_at) index
+    @Query(value = "SELECT * FROM notifications WHERE user_id = :userId " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Notification> findFirstPage(@Param("userId") Long userId, @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM notifications WHERE user_id = :userId AND (created_at, id) < (:createdAt, :id) " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Notification> findPageAfter(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id, @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM notifications WHERE user_id = :userId AND is_read = false " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Notification> findFirstUnreadPage(@Param("userId") Long userId, @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM notifications WHERE user_id = :userId AND is_read = false " +
+            "AND (created_at, id) < (:createdAt, :id) ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Notification> findUnreadPageAfter(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("id") Long id, @Param("limit") int limit);
+
+    @Query("select count(n) from Notification n where n.userId = :userId and n.isRead = false")
+    long countUnreadByUserId(@Param("userId") Long userId);
+
+    // Returns 1 only for the call that actually flipped the flag
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Notification n set n.isRead = true where n.id = :id and n.isRead = false")
+    int markAsReadIfUnread(@Param("id") Long id);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("delete from Notification n where n.id = :id and n.isRead = :isRead")
+    int deleteByIdAndRead(@Param("id") Long id, @Param("isRead") boolean isRead);
+
+    // Set-based bulk operations, each one statement that also writes the change log, so the two
+    // cannot diverge; they return the number of notifications changed
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "WITH changed AS (UPDATE notifications SET is_read = true " +
+            "WHERE user_id = :userId AND is_read = false RETURNING id, user_id) " +
+            RECORD_CHANGES_UPSERT, nativeQuery = true)
+    int markAllAsRead(@Param("userId") Long userId);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "WITH changed AS (UPDATE notifications SET is_read = true " +
+            "WHERE user_id = :userId AND is_read = false AND id IN (:ids) RETURNING id, user_id) " +
+            RECORD_CHANGES_UPSERT, nativeQuery = true)
+    int markAsRead(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "WITH changed AS (DELETE FROM notifications " +
+            "WHERE user_id = :userId AND is_read = true RETURNING id, user_id) " +
+            RECORD_CHANGES_DELETE, nativeQuery = true)
+    int deleteAllRead(@Param("userId") Long userId);
+}
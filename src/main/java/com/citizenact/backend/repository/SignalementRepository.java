@@ -2,11 +2,62 @@ package com.citizenact.backend.repository;
 
 import com.citizenact.backend.entity.Signalement;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface SignalementRepository extends JpaRepository<Signalement, Long> {
+    String SUMMARY_COLUMNS = "id, user_id AS \"userId\", arrondissement_id AS \"arrondissementId\", title, description, " +
+            "latitude, longitude, traitement_status AS \"traitementStatus\", reception_status AS \"receptionStatus\", " +
+            "created_at AS \"createdAt\", (image_sha256 IS NOT NULL OR image_base64 IS NOT NULL) AS \"hasImage\"";
+    String SUMMARY_SELECT = "select s.id as id, s.userId as userId, s.arrondissementId as arrondissementId, " +
+            "s.title as title, s.description as description, s.latitude as latitude, s.longitude as longitude, " +
+            "s.traitementStatus as traitementStatus, s.receptionStatus as receptionStatus, s.createdAt as createdAt, " +
+            "(case when s.imageHash is not null or s.imageBase64 is not null then true else false end) as hasImage " +
+            "from Signalement s ";
+
     List<Signalement> findByArrondissementId(Long arrondissementId);
     List<Signalement> findByUserId(Long userId);
     List<Signalement> findByUserIdAndArrondissementId(Long userId, Long arrondissementId);
-}
\ No newline at end of file
+
+    // Blob store sweep: which of these image hashes are still referenced
+    @Query("select s.imageHash from Signalement s where s.imageHash in :hashes")
+    Set<String> findImageHashesIn(@Param("hashes") Collection<String> hashes);
+
+    @Query(SUMMARY_SELECT + "where s.id in :ids")
+    List<SignalementSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SUMMARY_SELECT + "where s.userId = :userId")
+    List<SignalementSummary> findSummariesByUserId(@Param("userId") Long userId);
+
+    @Query(SUMMARY_SELECT + "where s.userId = :userId and s.arrondissementId = :arrondissementId")
+    List<SignalementSummary> findSummariesByUserIdAndArrondissementId(@Param("userId") Long userId,
+                                                                      @Param("arrondissementId") Long arrondissementId);
+
+    // Keyset pages, newest first. The row-value comparison lets PostgreSQL seek directly
+    // into the (created_at, id) indexes instead of skipping rows like OFFSET does.
+    @Query(value = "SELECT " + SUMMARY_COLUMNS + " FROM signalements ORDER BY created_at DESC, id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<SignalementSummary> findFirstPage(@Param("limit") int limit);
+
+    @Query(value = "SELECT " + SUMMARY_COLUMNS + " FROM signalements WHERE (created_at, id) < (:createdAt, :id) " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<SignalementSummary> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                           @Param("limit") int limit);
+
+    @Query(value = "SELECT " + SUMMARY_COLUMNS + " FROM signalements WHERE arrondissement_id = :arrondissementId " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<SignalementSummary> findFirstPageByArrondissementId(@Param("arrondissementId") Long arrondissementId,
+                                                             @Param("limit") int limit);
+
+    @Query(value = "SELECT " + SUMMARY_COLUMNS + " FROM signalements WHERE arrondissement_id = :arrondissementId " +
+            "AND (created_at, id) < (:createdAt, :id) ORDER BY created_at DESC, id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<SignalementSummary> findPageByArrondissementIdAfter(@Param("arrondissementId") Long arrondissementId,
+                                                             @Param("createdAt") LocalDateTime createdAt,
+                                                             @Param("id") Long id, @Param("limit") int limit);
+}
@@ -0,0 +1,21 @@
+package com.citizenact.backend.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Scalar columns of a signalement, without the image payload. List queries select
+ * into this projection so the image column is never read for list views.
+ */
+public interface SignalementSummary {
+    Long getId();
+    Long getUserId();
+    Long getArrondissementId();
+    String getTitle();
+    String getDescription();
+    Double getLatitude();
+    Double getLongitude();
+    String getTraitementStatus();
+    String getReceptionStatus();
+    LocalDateTime getCreatedAt();
+    Boolean getHasImage();
+}
@@ -0,0 +1,224 @@
+package com.citizenact.backend.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.event.AbstractAuthenticationFailureEvent;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token buckets in front of /api/auth/login and /api/auth/register, one per client IP and
+ * one per username, so that a burst of attempts is refused before it reaches the users table.
+ * HTTP Basic, which authenticates on every endpoint, shares the same buckets: each request is
+ * checked by {@link BasicAuthThrottleFilter}, and only failed authentications take a token, so
+ * clients with valid credentials are never slowed down.
+ *
+ * <p>Buckets live in {@link #STRIPES} access-ordered maps, each behind its own lock. A stripe
+ * holds at most {@code max-buckets / STRIPES} buckets and drops its least recently used one
+ * when full; buckets that have refilled completely carry no state and are swept every minute.
+ * Decisions, evictions and the bucket count are published as citizenact.auth.throttle.* metrics.
+ *
+ * <p>The IP is {@code request.getRemoteAddr()}. Behind a reverse proxy that is the proxy's
+ * address, so every client would share one bucket: deployments behind a proxy must set
+ * {@code server.forward-headers-strategy=native} for the client IP to be taken from
+ * X-Forwarded-For, and only from a trusted proxy.
+ */
+@Component
+public class AuthThrottle {
+
+    private static final int STRIPES = 64;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Limit ipLimit;
+    private final Limit usernameLimit;
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    public AuthThrottle(MeterRegistry meterRegistry,
+                        @Value("${citizenact.security.throttle.ip.capacity:30}") int ipCapacity,
+                        @Value("${citizenact.security.throttle.ip.per-minute:30}") int ipPerMinute,
+                        @Value("${citizenact.security.throttle.username.capacity:5}") int usernameCapacity,
+                        @Value("${citizenact.security.throttle.username.per-minute:5}") int usernamePerMinute,
+                        @Value("${citizenact.security.throttle.max-buckets:100000}") int maxBuckets) {
+        this.ipLimit = new Limit(ipCapacity, ipPerMinute);
+        this.usernameLimit = new Limit(usernameCapacity, usernamePerMinute);
+        int perStripe = Math.max(1, maxBuckets / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+        FunctionCounter.builder("citizenact.auth.throttle.allowed", allowed, LongAdder::sum)
+                .description("Login and registration attempts let through")
+                .register(meterRegistry);
+        FunctionCounter.builder("citizenact.auth.throttle.rejected", rejected, LongAdder::sum)
+                .description("Login, registration and HTTP Basic attempts refused with 429")
+                .register(meterRegistry);
+        FunctionCounter.builder("citizenact.auth.throttle.evictions", evicted, LongAdder::sum)
+                .description("Buckets dropped because their stripe was full")
+                .register(meterRegistry);
+        Gauge.builder("citizenact.auth.throttle.buckets", size, AtomicInteger::get)
+                .description("Token buckets currently held")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes one token from the caller's IP bucket and, when a username is given, from that
+     * username's bucket. Throws {@link TooManyAttemptsException} if either is empty.
+     */
+    public void acquire(String clientIp, String username) {
+        long now = System.nanoTime();
+        long waitNanos = take("ip:" + clientIp, ipLimit, now);
+        if (waitNanos == 0 && username != null && !username.isBlank()) {
+            waitNanos = take(usernameKey(username), usernameLimit, now);
+        }
+        if (waitNanos > 0) {
+            rejected.increment();
+            throw new TooManyAttemptsException(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1));
+        }
+        allowed.increment();
+    }
+
+    /**
+     * Throws {@link TooManyAttemptsException} if the caller's IP bucket or, when a username is
+     * given, that username's bucket is empty. Takes no token.
+     */
+    public void check(String clientIp, String username) {
+        long now = System.nanoTime();
+        long waitNanos = waitTime("ip:" + clientIp, now);
+        if (waitNanos == 0 && username != null && !username.isBlank()) {
+            waitNanos = waitTime(usernameKey(username), now);
+        }
+        if (waitNanos > 0) {
+            rejected.increment();
+            throw new TooManyAttemptsException(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1));
+        }
+    }
+
+    // Failed HTTP Basic authentications; login calls the authentication manager without request details
+    @EventListener
+    public void onAuthenticationFailure(AbstractAuthenticationFailureEvent event) {
+        if (event.getAuthentication().getDetails() instanceof WebAuthenticationDetails details) {
+            long now = System.nanoTime();
+            take("ip:" + details.getRemoteAddress(), ipLimit, now);
+            String username = event.getAuthentication().getName();
+            if (username != null && !username.isBlank()) {
+                take(usernameKey(username), usernameLimit, now);
+            }
+        }
+    }
+
+    // A full bucket is the same as no bucket
+    @Scheduled(fixedRate = 60_000)
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                int before = stripe.buckets.size();
+                stripe.buckets.values().removeIf(bucket -> bucket.isFull(now));
+                size.addAndGet(stripe.buckets.size() - before);
+            }
+        }
+    }
+
+    // Returns 0 if a token was taken, otherwise the time until the next one
+    private long take(String key, Limit limit, long now) {
+        Stripe stripe = stripes[key.hashCode() & (STRIPES - 1)];
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(limit, now);
+                stripe.buckets.put(key, bucket);
+                size.incrementAndGet();
+            }
+            return bucket.take(now);
+        }
+    }
+
+    // An absent bucket is full; it is not created just to be read
+    private long waitTime(String key, long now) {
+        Stripe stripe = stripes[key.hashCode() & (STRIPES - 1)];
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(key);
+            return bucket == null ? 0 : bucket.waitTime(now);
+        }
+    }
+
+    private static String usernameKey(String username) {
+        return "user:" + username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Limit {
+        private final double capacity;
+        private final double tokensPerNano;
+
+        private Limit(int capacity, int perMinute) {
+            this.capacity = capacity;
+            this.tokensPerNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        }
+    }
+
+    private static final class Bucket {
+        private final Limit limit;
+        private double tokens;
+        private long refilledAt;
+
+        private Bucket(Limit limit, long now) {
+            this.limit = limit;
+            this.tokens = limit.capacity;
+            this.refilledAt = now;
+        }
+
+        private long take(long now) {
+            long waitNanos = waitTime(now);
+            if (waitNanos == 0) {
+                tokens -= 1;
+            }
+            return waitNanos;
+        }
+
+        private long waitTime(long now) {
+            refill(now);
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / limit.tokensPerNano);
+        }
+
+        private boolean isFull(long now) {
+            refill(now);
+            return tokens >= limit.capacity;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(limit.capacity, tokens + (now - refilledAt) * limit.tokensPerNano);
+            refilledAt = now;
+        }
+    }
+
+    private final class Stripe {
+        private final Map<String, Bucket> buckets;
+
+        private Stripe(int maxBuckets) {
+            this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    if (size() <= maxBuckets) {
+                        return false;
+                    }
+                    size.decrementAndGet();
+                    evicted.increment();
+                    return true;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.citizenact.backend.security;
+
+import com.citizenact.backend.entity.User;
+import com.citizenact.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+/**
+ * The authenticated caller of the current request. Resolved once, on first use, from the
+ * authentication principal: bearer tokens and HTTP Basic principals already carry the id,
+ * role and arrondissement, so only an unknown principal type costs a users query.
+ */
+@Component
+@RequestScope
+public class CurrentUser {
+
+    private static final Logger logger = LoggerFactory.getLogger(CurrentUser.class);
+
+    private final UserRepository userRepository;
+    private boolean resolved;
+    private Long id;
+    private String username;
+    private String role;
+    private Long arrondissementId;
+
+    public CurrentUser(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    public Long getId() {
+        resolve();
+        return id;
+    }
+
+    public String getUsername() {
+        resolve();
+        return username;
+    }
+
+    public String getRole() {
+        resolve();
+        return role;
+    }
+
+    public Long getArrondissementId() {
+        resolve();
+        return arrondissementId;
+    }
+
+    private void resolve() {
+        if (resolved) {
+            return;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new IllegalArgumentException("User not authenticated");
+        }
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof TokenClaims claims) {
+            set(claims.getUserId(), claims.getUsername(), claims.getRole(), claims.getArrondissementId());
+        } else if (principal instanceof AuthenticatedUser user) {
+            set(user.getId(), user.getUsername(), user.getRole(), user.getArrondissementId());
+        } else {
+            String name = authentication.getName();
+            User user = userRepository.findByUsername(name)
+                    .orElseThrow(() -> {
+                        logger.error("User not found: {}", name);
+                        return new IllegalArgumentException("User not found");
+                    });
+            set(user.getId(), user.getUsername(), user.getRole(), user.getArrondissementId());
+        }
+        resolved = true;
+    }
+
+    private void set(Long id, String username, String role, Long arrondissementId) {
+        this.id = id;
+        this.username = username;
+        this.role = role;
+        this.arrondissementId = arrondissementId;
+    }
+}
@@ -0,0 +1,55 @@
+package com.citizenact.backend.security;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.security.Principal;
+
+/**
+ * Identity carried by a bearer token. Used as the authentication principal of token
+ * requests, so {@code Authentication.getName()} still returns the username.
+ */
+public class TokenClaims implements Principal {
+    private Long userId;
+    private String username;
+    private String role;
+    private Long arrondissementId;
+    private int version;
+    private long expiresAt; // Epoch seconds
+
+    public TokenClaims() {
+    }
+
+    public TokenClaims(Long userId, String username, String role, Long arrondissementId, int version, long expiresAt) {
+        this.userId = userId;
+        this.username = username;
+        this.role = role;
+        this.arrondissementId = arrondissementId;
+        this.version = version;
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    @JsonIgnore
+    public String getName() {
+        return username;
+    }
+
+    // Getters and Setters
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public String getRole() { return role; }
+    public void setRole(String role) { this.role = role; }
+    public Long getArrondissementId() { return arrondissementId; }
+    public void setArrondissementId(Long arrondissementId) { this.arrondissementId = arrondissementId; }
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+    public long getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(long expiresAt) { this.expiresAt = expiresAt; }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
@@ -0,0 +1,111 @@
+package com.citizenact.backend.security;
+
+import com.citizenact.backend.config.JwtConfig;
+import com.citizenact.backend.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Issues and verifies HS256 tokens of the form {@code header.claims.signature} (base64url),
+ * the JWT compact layout. Verification needs only the key and the in-memory revocation
+ * versions, never the database.
+ */
+@Service
+public class TokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String HEADER = base64Url("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+    private static final int MIN_KEY_BYTES = 32;
+
+    private final SecretKeySpec key;
+    private final long expirationSeconds;
+    private final ObjectMapper objectMapper;
+    private final TokenRevocationService tokenRevocationService;
+    private final ThreadLocal<Mac> macs;
+
+    public TokenService(JwtConfig jwtConfig, ObjectMapper objectMapper, TokenRevocationService tokenRevocationService) {
+        // Every instance must share the key, and tokens must survive a restart: no random fallback
+        if (jwtConfig.getSecret() == null || jwtConfig.getSecret().isBlank()) {
+            throw new IllegalStateException("jwt.secret is not set (JWT_SECRET: Base64, at least 256 bits)");
+        }
+        byte[] secret;
+        try {
+            secret = Base64.getDecoder().decode(jwtConfig.getSecret().trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("jwt.secret is not valid Base64", e);
+        }
+        if (secret.length < MIN_KEY_BYTES) {
+            throw new IllegalStateException("jwt.secret must be at least 256 bits");
+        }
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+        this.expirationSeconds = jwtConfig.getExpiration();
+        this.objectMapper = objectMapper;
+        this.tokenRevocationService = tokenRevocationService;
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        });
+    }
+
+    public String issue(User user) {
+        TokenClaims claims = new TokenClaims(user.getId(), user.getUsername(), user.getRole(), user.getArrondissementId(),
+                user.getTokenVersion(), Instant.now().getEpochSecond() + expirationSeconds);
+        try {
+            String signingInput = HEADER + "." + base64Url(objectMapper.writeValueAsBytes(claims));
+            return signingInput + "." + base64Url(sign(signingInput));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize token claims", e);
+        }
+    }
+
+    public long getExpirationSeconds() {
+        return expirationSeconds;
+    }
+
+    // Empty for a malformed, forged, expired or revoked token
+    public Optional<TokenClaims> verify(String token) {
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if (firstDot < 0 || firstDot == lastDot || !HEADER.equals(token.substring(0, firstDot))) {
+            return Optional.empty();
+        }
+        try {
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(lastDot + 1));
+            if (!MessageDigest.isEqual(signature, sign(token.substring(0, lastDot)))) {
+                return Optional.empty();
+            }
+            TokenClaims claims = objectMapper.readValue(
+                    Base64.getUrlDecoder().decode(token.substring(firstDot + 1, lastDot)), TokenClaims.class);
+            if (claims.getExpiresAt() <= Instant.now().getEpochSecond()
+                    || claims.getVersion() != tokenRevocationService.currentVersion(claims.getUserId())) {
+                return Optional.empty();
+            }
+            return Optional.of(claims);
+        } catch (IllegalArgumentException | IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(String signingInput) {
+        return macs.get().doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String base64Url(byte[] data) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(data);
+    }
+}
@@ -0,0 +1,40 @@
+package com.citizenact.backend.service;
+
+import com.citizenact.backend.entity.User;
+import com.citizenact.backend.repository.UserRepository;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Ids of the ACTIVE agents of each arrondissement, cached until an agent of that
+ * arrondissement is created or changes status. The eviction only reaches this instance;
+ * other instances pick the change up when their entry expires (spring.cache.caffeine.spec).
+ * Ids rather than User entities are cached, so callers cannot mutate shared state.
+ */
+@Service
+public class AgentDirectory {
+
+    public static final String CACHE_NAME = "activeAgentIds";
+
+    private final UserRepository userRepository;
+
+    public AgentDirectory(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Cacheable(cacheNames = CACHE_NAME, key = "#arrondissementId")
+    public List<Long> findActiveAgentIds(Long arrondissementId) {
+        return userRepository.findByArrondissementIdAndRole(arrondissementId, "AGENT").stream()
+                .filter(agent -> "ACTIVE".equals(agent.getStatus()))
+                .map(User::getId)
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    @CacheEvict(cacheNames = CACHE_NAME, key = "#arrondissementId")
+    public void evict(Long arrondissementId) {
+    }
+}
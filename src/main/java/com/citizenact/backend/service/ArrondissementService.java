@@ -2,6 +2,7 @@ package com.citizenact.backend.service;
 
 import com.citizenact.backend.dto.ArrondissementDTO;
 import com.citizenact.backend.entity.Arrondissement;
+import com.citizenact.backend.geo.ArrondissementIndex;
 import com.citizenact.backend.repository.ArrondissementRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.stereotype.Service;
@@ -15,11 +16,14 @@ public class ArrondissementService {
     private final ArrondissementRepository arrondissementRepository;
     private final UserService userService;
     private final ObjectMapper objectMapper;
+    private final ArrondissementIndex arrondissementIndex;
 
-    public ArrondissementService(ArrondissementRepository arrondissementRepository, UserService userService, ObjectMapper objectMapper) {
+    public ArrondissementService(ArrondissementRepository arrondissementRepository, UserService userService, ObjectMapper objectMapper,
+                                 ArrondissementIndex arrondissementIndex) {
         this.arrondissementRepository = arrondissementRepository;
         this.userService = userService;
         this.objectMapper = objectMapper;
+        this.arrondissementIndex = arrondissementIndex;
     }
 
     public Arrondissement createArrondissement(ArrondissementDTO dto) {
@@ -60,7 +64,9 @@ public class ArrondissementService {
             arrondissement.setGeo(dto.getGeo());
             arrondissement.setArea(dto.getArea());
             arrondissement.setCentroid(dto.getCentroid());
-            return arrondissementRepository.save(arrondissement);
+            arrondissement = arrondissementRepository.save(arrondissement);
+            arrondissementIndex.rebuild();
+            return arrondissement;
         } catch (Exception e) {
             throw new IllegalArgumentException("Failed to create arrondissement: " + e.getMessage());
         }
@@ -87,6 +93,7 @@ public class ArrondissementService {
         }
         arrondissement.setStatus(status);
         arrondissement = arrondissementRepository.save(arrondissement);
+        arrondissementIndex.rebuild(); // Only ACTIVE arrondissements are indexed
         userService.updateAgentsStatusByArrondissement(id, status);
         return toDTO(arrondissement);
     }
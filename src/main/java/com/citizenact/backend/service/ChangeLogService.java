@@ -0,0 +1,78 @@
+package com.citizenact.backend.service;
+
+import com.citizenact.backend.entity.ChangeLogEntry;
+import com.citizenact.backend.entity.ChangeLogPruning;
+import com.citizenact.backend.entity.Notification;
+import com.citizenact.backend.entity.Signalement;
+import com.citizenact.backend.repository.ChangeLogRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+public class ChangeLogService {
+
+    private static final int INSERT_CHUNK_SIZE = 1000;
+
+    private final ChangeLogRepository changeLogRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ChangeLogService(ChangeLogRepository changeLogRepository, JdbcTemplate jdbcTemplate) {
+        this.changeLogRepository = changeLogRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Entries of transactions up to this one may have been pruned, older positions need a full reload.
+    // Read from the database on every check, the pruning may have been done by another instance.
+    public long getPrunedThroughTxId() {
+        Long txId = jdbcTemplate.queryForObject("SELECT max(pruned_through_tx_id) FROM change_log_pruning", Long.class);
+        return txId != null ? txId : 0;
+    }
+
+    // Called in the transaction that deletes the entries, so the mark commits with them
+    public void markPrunedThrough(long txId) {
+        jdbcTemplate.update("INSERT INTO change_log_pruning (id, pruned_through_tx_id, pruned_at) VALUES (?, ?, now()) "
+                + "ON CONFLICT (id) DO UPDATE SET pruned_through_tx_id = "
+                + "greatest(change_log_pruning.pruned_through_tx_id, excluded.pruned_through_tx_id), pruned_at = now()",
+                ChangeLogPruning.ROW_ID, txId);
+    }
+
+    public void recordSignalement(Signalement signalement) {
+        changeLogRepository.save(new ChangeLogEntry(ChangeLogEntry.SIGNALEMENT, signalement.getId(),
+                ChangeLogEntry.UPSERT, signalement.getUserId(), signalement.getArrondissementId()));
+    }
+
+    public void recordNotification(Notification notification, String operation) {
+        changeLogRepository.save(new ChangeLogEntry(ChangeLogEntry.NOTIFICATION, notification.getId(),
+                operation, notification.getUserId(), null));
+    }
+
+    // Used by the notification writer's batches
+    public void recordNotifications(List<Notification> notifications, String operation) {
+        recordNotifications(notifications.stream().map(Notification::getId).collect(Collectors.toList()),
+                notifications.stream().map(Notification::getUserId).collect(Collectors.toList()), operation);
+    }
+
+    // Multi-row inserts, chunked to stay well under the driver's bind parameter limit
+    public void recordNotifications(List<Long> notificationIds, List<Long> userIds, String operation) {
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < notificationIds.size(); from += INSERT_CHUNK_SIZE) {
+            int to = Math.min(from + INSERT_CHUNK_SIZE, notificationIds.size());
+            List<Object> args = new ArrayList<>((to - from) * 4);
+            for (int i = from; i < to; i++) {
+                args.add(notificationIds.get(i));
+                args.add(operation);
+                args.add(userIds.get(i));
+                args.add(now);
+            }
+            jdbcTemplate.update("INSERT INTO change_log (entity_type, entity_id, operation, user_id, created_at) VALUES "
+                    + String.join(", ", Collections.nCopies(to - from, "('" + ChangeLogEntry.NOTIFICATION + "', ?, ?, ?, ?)")),
+                    args.toArray());
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.citizenact.backend.service;
+
+import com.citizenact.backend.entity.ChangeLogEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Nightly retention for the notifications table. Read notifications older than
+ * {@code read-max-age-days} and anything beyond a user's newest {@code max-per-user} rows
+ * are moved to notifications_archive; old change log entries are dropped.
+ *
+ * <p>Work is done in chunks of {@code chunk-size} rows, each in its own short transaction
+ * with a lock timeout, skipping rows locked by live requests and pausing between chunks.
+ * The job runs on the maintenance executor, never on a scheduler thread.
+ */
+@Service
+public class NotificationRetentionJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationRetentionJob.class);
+
+    // Deletes one chunk and copies it to the archive in the same statement
+    private static final String ARCHIVE_CHUNK =
+            "WITH moved AS (DELETE FROM notifications WHERE id IN (%s) " +
+            "RETURNING id, user_id, signalement_id, message, created_at) " +
+            "INSERT INTO notifications_archive (id, user_id, signalement_id, message, created_at, archived_at) " +
+            "SELECT id, user_id, signalement_id, message, created_at, now() FROM moved RETURNING id, user_id";
+    private static final String EXPIRED_READ =
+            "SELECT id FROM notifications WHERE is_read = true AND created_at < ? " +
+            "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+    // The oldest row a user keeps, read without locks: skipping locked rows here would shift
+    // the window into the rows being kept
+    private static final String CAP_CUTOFF =
+            "SELECT created_at, id FROM notifications WHERE user_id = ? " +
+            "ORDER BY created_at DESC, id DESC OFFSET ? LIMIT 1";
+    private static final String BEYOND_CAP =
+            "SELECT id FROM notifications WHERE user_id = ? AND (created_at, id) < (?, ?) " +
+            "ORDER BY created_at, id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeLogService changeLogService;
+    private final UnreadCounterService unreadCounterService;
+    private final int readMaxAgeDays;
+    private final int maxPerUser;
+    private final int changeLogMaxAgeDays;
+    private final int chunkSize;
+    private final long pauseMs;
+
+    public NotificationRetentionJob(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                    ChangeLogService changeLogService, UnreadCounterService unreadCounterService,
+                                    @Value("${citizenact.notifications.retention.read-max-age-days:90}") int readMaxAgeDays,
+                                    @Value("${citizenact.notifications.retention.max-per-user:500}") int maxPerUser,
+                                    @Value("${citizenact.notifications.retention.change-log-max-age-days:30}") int changeLogMaxAgeDays,
+                                    @Value("${citizenact.notifications.retention.chunk-size:500}") int chunkSize,
+                                    @Value("${citizenact.notifications.retention.pause-ms:200}") long pauseMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.changeLogService = changeLogService;
+        this.unreadCounterService = unreadCounterService;
+        this.readMaxAgeDays = readMaxAgeDays;
+        this.maxPerUser = maxPerUser;
+        this.changeLogMaxAgeDays = changeLogMaxAgeDays;
+        this.chunkSize = chunkSize;
+        this.pauseMs = pauseMs;
+    }
+
+    // Chunks and pauses can last minutes: the scheduler only hands the run to the maintenance executor
+    @Async("maintenanceExecutor")
+    @Scheduled(cron = "${citizenact.notifications.retention.cron:0 30 3 * * *}")
+    public void run() {
+        try {
+            long expired = archiveExpiredRead();
+            long capped = archiveBeyondCap();
+            long pruned = pruneChangeLog();
+            logger.info("Notification retention: {} expired, {} over the per-user cap archived, {} change log entries pruned",
+                    expired, capped, pruned);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    long archiveExpiredRead() throws InterruptedException {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(readMaxAgeDays));
+        long total = 0;
+        int moved;
+        do {
+            moved = archiveChunk(EXPIRED_READ, cutoff, chunkSize);
+            total += moved;
+            pause(moved);
+        } while (moved == chunkSize);
+        return total;
+    }
+
+    long archiveBeyondCap() throws InterruptedException {
+        // Index-only scan on (user_id, ...); only the few users over the cap are visited
+        List<Long> userIds = jdbcTemplate.queryForList(
+                "SELECT user_id FROM notifications GROUP BY user_id HAVING count(*) > ?", Long.class, maxPerUser);
+        long total = 0;
+        for (Long userId : userIds) {
+            List<Object[]> cutoff = jdbcTemplate.query(CAP_CUTOFF,
+                    (rs, rowNum) -> new Object[] {rs.getTimestamp("created_at"), rs.getLong("id")}, userId, maxPerUser - 1);
+            if (cutoff.isEmpty()) {
+                continue;
+            }
+            // Rows locked by live requests are left for the next run
+            int moved;
+            do {
+                moved = archiveChunk(BEYOND_CAP, userId, cutoff.get(0)[0], cutoff.get(0)[1], chunkSize);
+                total += moved;
+                pause(moved);
+            } while (moved == chunkSize);
+            // Unread rows may have been archived with the rest
+            unreadCounterService.invalidate(userId);
+        }
+        return total;
+    }
+
+    long pruneChangeLog() throws InterruptedException {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(changeLogMaxAgeDays));
+        long total = 0;
+        int deleted;
+        do {
+            deleted = inChunkTransaction(() -> {
+                List<Long> txIds = jdbcTemplate.queryForList(
+                        "DELETE FROM change_log WHERE id IN (SELECT id FROM change_log WHERE created_at < ? " +
+                        "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) RETURNING tx_id", Long.class, cutoff, chunkSize);
+                if (!txIds.isEmpty()) {
+                    // Positions at or below this transaction can no longer be served incrementally
+                    changeLogService.markPrunedThrough(txIds.stream().mapToLong(Long::longValue).max().getAsLong());
+                }
+                return txIds.size();
+            });
+            total += deleted;
+            pause(deleted);
+        } while (deleted == chunkSize);
+        return total;
+    }
+
+    private int archiveChunk(String selectIds, Object... args) {
+        return inChunkTransaction(() -> {
+            List<Long> ids = new ArrayList<>();
+            List<Long> userIds = new ArrayList<>();
+            jdbcTemplate.query(String.format(ARCHIVE_CHUNK, selectIds), rs -> {
+                ids.add(rs.getLong("id"));
+                userIds.add(rs.getLong("user_id"));
+            }, args);
+            if (!ids.isEmpty()) {
+                // Synced devices drop archived notifications like deleted ones
+                changeLogService.recordNotifications(ids, userIds, ChangeLogEntry.DELETE);
+            }
+            return ids.size();
+        });
+    }
+
+    private <T> T inChunkTransaction(Supplier<T> work) {
+        return transactionTemplate.execute(status -> {
+            // Give up on a chunk rather than queue behind a request holding a lock
+            jdbcTemplate.execute("SET LOCAL lock_timeout = '2s'");
+            return work.get();
+        });
+    }
+
+    private void pause(int lastChunk) throws InterruptedException {
+        if (lastChunk == chunkSize && pauseMs > 0) {
+            Thread.sleep(pauseMs);
+        }
+    }
+}
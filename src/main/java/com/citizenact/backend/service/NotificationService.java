@@ -1,23 +1,44 @@
 package com.citizenact.backend.service;
 
+import com.citizenact.backend.dto.CursorPage;
 import com.citizenact.backend.dto.NotificationDTO;
+import com.citizenact.backend.dto.PageCursor;
+import com.citizenact.backend.entity.ChangeLogEntry;
 import com.citizenact.backend.entity.Notification;
 import com.citizenact.backend.repository.NotificationRepository;
-import com.citizenact.backend.repository.UserRepository;
+import com.citizenact.backend.security.CurrentUser;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 @Service
 public class NotificationService {
 
+    private static final int MAX_BULK_IDS = 1000;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final NotificationRepository notificationRepository;
-    private final UserRepository userRepository;
+    private final ChangeLogService changeLogService;
+    private final UnreadCounterService unreadCounterService;
+    private final NotificationWriter notificationWriter;
+    private final CurrentUser currentUser;
+    private final TransactionTemplate transactionTemplate;
 
-    public NotificationService(NotificationRepository notificationRepository, UserRepository userRepository) {
+    public NotificationService(NotificationRepository notificationRepository, ChangeLogService changeLogService,
+                               UnreadCounterService unreadCounterService, NotificationWriter notificationWriter,
+                               CurrentUser currentUser, TransactionTemplate transactionTemplate) {
         this.notificationRepository = notificationRepository;
-        this.userRepository = userRepository;
+        this.changeLogService = changeLogService;
+        this.unreadCounterService = unreadCounterService;
+        this.notificationWriter = notificationWriter;
+        this.currentUser = currentUser;
+        this.transactionTemplate = transactionTemplate;
     }
 
     public void createNotification(Long userId, Long signalementId, String message) {
@@ -26,7 +47,7 @@ public class NotificationService {
         notification.setSignalementId(signalementId);
         notification.setMessage(message);
         notification.setRead(false);
-        notificationRepository.save(notification);
+        notificationWriter.enqueue(notification);
     }
 
     public void createRegistrationNotification(Long userId, String message) {
@@ -35,45 +56,144 @@ public class NotificationService {
         notification.setSignalementId(null);
         notification.setMessage(message);
         notification.setRead(false);
-        notificationRepository.save(notification);
+        notificationWriter.enqueue(notification);
     }
 
-    public List<NotificationDTO> getUserNotifications(String username) {
-        Long userId = userRepository.findByUsername(username)
-            .orElseThrow(() -> new RuntimeException("User not found: " + username))
-            .getId();
-        return notificationRepository.findByUserId(userId).stream()
-            .map(this::toDTO)
-            .collect(Collectors.toList());
+    // Requests with neither a cursor nor a limit predate paging and still get every notification,
+    // read in seek pages; retention keeps a user's list bounded
+    public CursorPage<NotificationDTO> getUserNotifications(String cursor, Integer limit, boolean unreadOnly) {
+        Long userId = currentUser.getId();
+        if (cursor == null && limit == null) {
+            BiFunction<PageCursor, Integer, List<Notification>> pageReader = pageReader(userId, unreadOnly);
+            List<NotificationDTO> all = new ArrayList<>();
+            PageCursor after = null;
+            List<Notification> rows;
+            do {
+                rows = pageReader.apply(after, MAX_PAGE_SIZE);
+                rows.forEach(notification -> all.add(toDTO(notification)));
+                if (!rows.isEmpty()) {
+                    Notification last = rows.get(rows.size() - 1);
+                    after = new PageCursor(last.getCreatedAt(), last.getId());
+                }
+            } while (rows.size() == MAX_PAGE_SIZE);
+            return new CursorPage<>(all, null);
+        }
+        return getUserNotifications(userId, cursor, limit != null ? limit : DEFAULT_PAGE_SIZE, unreadOnly);
     }
 
-    public NotificationDTO markNotificationAsRead(Long notificationId, String username) {
-        Notification notification = notificationRepository.findById(notificationId)
-            .orElseThrow(() -> new RuntimeException("Notification not found: " + notificationId));
-        Long userId = userRepository.findByUsername(username)
-            .orElseThrow(() -> new RuntimeException("User not found: " + username))
-            .getId();
-        if (!notification.getUserId().equals(userId)) {
-            throw new RuntimeException("Unauthorized access to notification: " + notificationId);
+    // Also used outside of requests, for the WebSocket backlog
+    public CursorPage<NotificationDTO> getUserNotifications(Long userId, String cursor, int limit, boolean unreadOnly) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        PageCursor after = cursor != null ? PageCursor.decode(cursor) : null;
+        // One extra row tells whether a next page exists
+        List<Notification> rows = pageReader(userId, unreadOnly).apply(after, limit + 1);
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows.stream().map(NotificationService::toDTO).collect(Collectors.toList()), null);
+        }
+        List<Notification> page = rows.subList(0, limit);
+        Notification last = page.get(limit - 1);
+        return new CursorPage<>(page.stream().map(NotificationService::toDTO).collect(Collectors.toList()),
+            new PageCursor(last.getCreatedAt(), last.getId()).encode());
+    }
+
+    // The lookup, the row and its change log entry share one transaction; the unread counter
+    // is only adjusted once it has committed
+    public NotificationDTO markNotificationAsRead(Long notificationId) {
+        Long userId = currentUser.getId();
+        boolean[] flipped = new boolean[1];
+        Notification notification = transactionTemplate.execute(status -> {
+            Notification own = findOwnNotification(notificationId, userId);
+            flipped[0] = notificationRepository.markAsReadIfUnread(notificationId) > 0;
+            own.setRead(true);
+            changeLogService.recordNotification(own, ChangeLogEntry.UPSERT);
+            return own;
+        });
+        if (flipped[0]) {
+            unreadCounterService.adjust(userId, -1);
         }
-        notification.setRead(true);
-        notification = notificationRepository.save(notification);
         return toDTO(notification);
     }
 
-    public void deleteNotification(Long notificationId, String username) {
+    public void deleteNotification(Long notificationId) {
+        Long userId = currentUser.getId();
+        boolean wasUnread = transactionTemplate.execute(status -> {
+            Notification notification = findOwnNotification(notificationId, userId);
+            // Deleting an unread notification first tells us whether the count drops
+            boolean unread = notificationRepository.deleteByIdAndRead(notificationId, false) > 0;
+            if (!unread) {
+                notificationRepository.deleteByIdAndRead(notificationId, true);
+            }
+            changeLogService.recordNotification(notification, ChangeLogEntry.DELETE);
+            return unread;
+        });
+        if (wasUnread) {
+            unreadCounterService.adjust(userId, -1);
+        }
+    }
+
+    public int markAllAsRead() {
+        Long userId = currentUser.getId();
+        return afterMarkedRead(userId, notificationRepository.markAllAsRead(userId));
+    }
+
+    public int markAsRead(Collection<Long> notificationIds) {
+        if (notificationIds == null || notificationIds.isEmpty()) {
+            return 0;
+        }
+        if (notificationIds.size() > MAX_BULK_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_IDS + " notification ids per request");
+        }
+        Long userId = currentUser.getId();
+        // Ids of other users are not matched by the user-scoped update
+        return afterMarkedRead(userId, notificationRepository.markAsRead(userId, notificationIds));
+    }
+
+    public int deleteAllRead() {
+        // Read notifications do not count towards the unread badge
+        return notificationRepository.deleteAllRead(currentUser.getId());
+    }
+
+    public long getUnreadCount() {
+        return unreadCounterService.getUnreadCount(currentUser.getId());
+    }
+
+    public List<NotificationDTO> getNotificationsByIds(Collection<Long> notificationIds) {
+        return notificationRepository.findAllById(notificationIds).stream()
+            .map(NotificationService::toDTO)
+            .collect(Collectors.toList());
+    }
+
+    private BiFunction<PageCursor, Integer, List<Notification>> pageReader(Long userId, boolean unreadOnly) {
+        if (unreadOnly) {
+            return (after, size) -> after == null
+                ? notificationRepository.findFirstUnreadPage(userId, size)
+                : notificationRepository.findUnreadPageAfter(userId, after.getCreatedAt(), after.getId(), size);
+        }
+        return (after, size) -> after == null
+            ? notificationRepository.findFirstPage(userId, size)
+            : notificationRepository.findPageAfter(userId, after.getCreatedAt(), after.getId(), size);
+    }
+
+    // The statement has already written the change log and committed
+    private int afterMarkedRead(Long userId, int updated) {
+        if (updated > 0) {
+            unreadCounterService.adjust(userId, -updated);
+        }
+        return updated;
+    }
+
+    private Notification findOwnNotification(Long notificationId, Long userId) {
         Notification notification = notificationRepository.findById(notificationId)
             .orElseThrow(() -> new RuntimeException("Notification not found: " + notificationId));
-        Long userId = userRepository.findByUsername(username)
-            .orElseThrow(() -> new RuntimeException("User not found: " + username))
-            .getId();
         if (!notification.getUserId().equals(userId)) {
             throw new RuntimeException("Unauthorized access to notification: " + notificationId);
         }
-        notificationRepository.delete(notification);
+        return notification;
     }
 
-    private NotificationDTO toDTO(Notification notification) {
+    static NotificationDTO toDTO(Notification notification) {
         NotificationDTO dto = new NotificationDTO();
         dto.setId(notification.getId());
         dto.setUserId(notification.getUserId());
@@ -2,36 +2,102 @@ package com.citizenact.backend.service;
 
 
 
+import com.citizenact.backend.dto.ClusterDTO;
+
+import com.citizenact.backend.dto.CursorPage;
+
+import com.citizenact.backend.dto.PageCursor;
+
 import com.citizenact.backend.dto.SignalementDTO;
 
+import com.citizenact.backend.dto.SignalementImage;
+
+import com.citizenact.backend.entity.Arrondissement;
+
+import com.citizenact.backend.entity.OutboxEvent;
+
 import com.citizenact.backend.entity.Signalement;
 
 import com.citizenact.backend.entity.User;
 
+import com.citizenact.backend.geo.ArrondissementIndex;
+
+import com.citizenact.backend.geo.BoundingBox;
+
+import com.citizenact.backend.geo.SignalementClusterIndex;
+
+import com.citizenact.backend.geo.SignalementGeoIndex;
+
 import com.citizenact.backend.repository.ArrondissementRepository;
 
+import com.citizenact.backend.repository.OutboxEventRepository;
+
 import com.citizenact.backend.repository.SignalementRepository;
 
+import com.citizenact.backend.repository.SignalementSummary;
+
 import com.citizenact.backend.repository.UserRepository;
 
+import com.citizenact.backend.security.CurrentUser;
+
+import com.citizenact.backend.storage.BlobStore;
+
+import com.citizenact.backend.storage.ImageTypes;
+
+import com.citizenact.backend.storage.StoredBlob;
+
+import com.citizenact.backend.storage.ThumbnailGenerator;
+
 import org.slf4j.Logger;
 
 import org.slf4j.LoggerFactory;
 
-import org.springframework.security.core.context.SecurityContextHolder;
-
 import org.springframework.stereotype.Service;
 
+import org.springframework.transaction.support.TransactionTemplate;
+
+
+
+import java.io.ByteArrayInputStream;
+
+import java.io.IOException;
+
+import java.io.InputStream;
+
+import java.io.UncheckedIOException;
 
+import java.nio.file.Path;
 
 import java.time.LocalDateTime;
 
+import java.util.ArrayList;
+
 import java.util.Arrays;
 
 import java.util.Base64;
 
+import java.util.Collection;
+
 import java.util.List;
 
+import java.util.Map;
+
+import java.util.Objects;
+
+import java.util.Optional;
+
+import java.util.Set;
+
+import java.util.function.BiFunction;
+
+import java.util.function.Function;
+
+import java.util.function.Supplier;
+
+import java.util.regex.Matcher;
+
+import java.util.regex.Pattern;
+
 import java.util.stream.Collectors;
 
 
@@ -50,17 +116,55 @@ public class SignalementService {
 
     private final ArrondissementRepository arrondissementRepository;
 
-    private final NotificationService notificationService;
+    private final BlobStore blobStore;
+
+    private final ThumbnailGenerator thumbnailGenerator;
+
+    private final ChangeLogService changeLogService;
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final CurrentUser currentUser;
+
+    private final ArrondissementIndex arrondissementIndex;
+
+    private final SignalementGeoIndex signalementGeoIndex;
+
+    private final SignalementClusterIndex signalementClusterIndex;
 
     private static final List<String> VALID_RECEPTION_STATUSES = Arrays.asList("Reçu", "Rejeté");
 
     private static final List<String> VALID_TRAITEMENT_STATUSES = Arrays.asList("En attente", "Traité");
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    private static final int MAX_PAGE_SIZE = 200;
+
+    private static final int MAX_MAP_RESULTS = 1000;
+
+    private static final double MAX_RADIUS_METERS = 50_000;
+
+    private static final int MAX_ZOOM = 22;
+
+    private static final Pattern DATA_URI_PREFIX = Pattern.compile("data:([^;,]*);base64,");
+
+    private static final int DATA_URI_MAX_LENGTH = 64;
+
 
 
     public SignalementService(SignalementRepository signalementRepository, UserRepository userRepository,
 
-                             ArrondissementRepository arrondissementRepository, NotificationService notificationService) {
+                             ArrondissementRepository arrondissementRepository, BlobStore blobStore,
+
+                             ThumbnailGenerator thumbnailGenerator, ChangeLogService changeLogService,
+
+                             OutboxEventRepository outboxEventRepository, TransactionTemplate transactionTemplate,
+
+                             CurrentUser currentUser, ArrondissementIndex arrondissementIndex,
+
+                             SignalementGeoIndex signalementGeoIndex, SignalementClusterIndex signalementClusterIndex) {
 
         this.signalementRepository = signalementRepository;
 
@@ -68,95 +172,91 @@ public class SignalementService {
 
         this.arrondissementRepository = arrondissementRepository;
 
-        this.notificationService = notificationService;
-
-    }
+        this.blobStore = blobStore;
 
+        this.thumbnailGenerator = thumbnailGenerator;
 
+        this.changeLogService = changeLogService;
 
-    public SignalementDTO createSignalement(SignalementDTO signalementDTO) {
+        this.outboxEventRepository = outboxEventRepository;
 
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        this.transactionTemplate = transactionTemplate;
 
-        User user = userRepository.findByUsername(username)
+        this.currentUser = currentUser;
 
-                .orElseThrow(() -> {
+        this.arrondissementIndex = arrondissementIndex;
 
-                    logger.error("User not found: {}", username);
+        this.signalementGeoIndex = signalementGeoIndex;
 
-                    return new IllegalArgumentException("User not found: " + username);
+        this.signalementClusterIndex = signalementClusterIndex;
 
-                });
+    }
 
 
 
-        if (!"USER".equals(user.getRole())) {
+    public SignalementDTO createSignalement(SignalementDTO signalementDTO) {
 
-            logger.warn("User {} attempted to create signalement with invalid role: {}", username, user.getRole());
+        return createSignalement(signalementDTO, () -> storeBase64Image(signalementDTO.getImageBase64()));
 
-            throw new IllegalArgumentException("Only users with role USER can create signalements");
+    }
 
-        }
 
 
+    /**
 
-        // Validate arrondissement
+     * Multipart variant: the photo is streamed from the uploaded part into the blob store
 
-        if (!arrondissementRepository.existsById(signalementDTO.getArrondissementId())) {
+     * instead of travelling as Base64 inside the JSON body. The part's declared type is
 
-            logger.error("Arrondissement not found with ID: {}", signalementDTO.getArrondissementId());
+     * ignored, the format is sniffed from the bytes.
 
-            throw new IllegalArgumentException("Arrondissement not found with ID: " + signalementDTO.getArrondissementId());
+     */
 
-        }
+    public SignalementDTO createSignalement(SignalementDTO signalementDTO, InputStream image) {
 
+        return createSignalement(signalementDTO, () -> image != null
 
+                ? storeImage(image)
 
-        // Validate reception status
+                : storeBase64Image(signalementDTO.getImageBase64()));
 
-        if (signalementDTO.getReceptionStatus() == null || !VALID_RECEPTION_STATUSES.contains(signalementDTO.getReceptionStatus())) {
+    }
 
-            logger.error("Invalid reception status: {}", signalementDTO.getReceptionStatus());
 
-            throw new IllegalArgumentException("Reception status must be one of: " + String.join(", ", VALID_RECEPTION_STATUSES));
 
-        }
+    private SignalementDTO createSignalement(SignalementDTO signalementDTO, Supplier<StoredBlob> imageUpload) {
 
+        if (!"USER".equals(currentUser.getRole())) {
 
+            logger.warn("User {} attempted to create signalement with invalid role: {}", currentUser.getUsername(), currentUser.getRole());
 
-        // Validate Base64 image if provided
+            throw new IllegalArgumentException("Only users with role USER can create signalements");
 
-        String base64Image = signalementDTO.getImageBase64();
+        }
 
-        if (base64Image != null && !base64Image.isEmpty()) {
 
-            try {
 
-                // Clean MIME prefix if present
+        // Validate arrondissement
 
-                String cleanedBase64 = base64Image.replaceFirst("^data:image/[^;]+;base64,", "");
+        Long arrondissementId = resolveArrondissementId(signalementDTO);
 
-                // Validate Base64
 
-                Base64.getDecoder().decode(cleanedBase64);
 
-                logger.debug("Base64 image validated successfully for signalement");
+        // Validate reception status
 
-            } catch (IllegalArgumentException e) {
+        if (signalementDTO.getReceptionStatus() == null || !VALID_RECEPTION_STATUSES.contains(signalementDTO.getReceptionStatus())) {
 
-                logger.error("Invalid Base64 format: {}", e.getMessage());
+            logger.error("Invalid reception status: {}", signalementDTO.getReceptionStatus());
 
-                throw new IllegalArgumentException("Invalid Base64 image format: " + e.getMessage());
+            throw new IllegalArgumentException("Reception status must be one of: " + String.join(", ", VALID_RECEPTION_STATUSES));
 
-            }
+        }
 
-        } else {
 
-            logger.debug("No image provided for signalement, setting imageBase64 to null");
 
-            signalementDTO.setImageBase64(null); // Explicitly set to null if no image
+        // Stored before the transaction; if it rolls back, BlobSweepJob deletes the unreferenced blob
 
-        }
+        StoredBlob image = imageUpload.get();
 
 
 
@@ -164,15 +264,23 @@ public class SignalementService {
 
         Signalement signalement = new Signalement();
 
-        signalement.setUserId(user.getId());
+        signalement.setUserId(currentUser.getId());
 
-        signalement.setArrondissementId(signalementDTO.getArrondissementId());
+        signalement.setArrondissementId(arrondissementId);
 
         signalement.setTitle(signalementDTO.getTitle());
 
         signalement.setDescription(signalementDTO.getDescription());
 
-        signalement.setImageBase64(signalementDTO.getImageBase64());
+        if (image != null) {
+
+            signalement.setImageHash(image.getHash());
+
+            signalement.setImageContentType(image.getContentType());
+
+            signalement.setImageSize(image.getSize());
+
+        }
 
         signalement.setLatitude(signalementDTO.getLatitude());
 
@@ -188,47 +296,49 @@ public class SignalementService {
 
         try {
 
-            Signalement savedSignalement = signalementRepository.save(signalement);
+            // Notifications are sent by the outbox relay once this commits
 
-            logger.info("Signalement saved with ID: {}", savedSignalement.getId());
+            Signalement savedSignalement = transactionTemplate.execute(status -> {
 
-            notificationService.createNotification(user.getId(), savedSignalement.getId(),
+                Signalement saved = signalementRepository.save(signalement);
 
-                    "Signalement créé: " + signalement.getTitle());
+                changeLogService.recordSignalement(saved);
 
-            return toDTO(savedSignalement, user);
+                outboxEventRepository.save(new OutboxEvent(OutboxEvent.SIGNALEMENT_CREATED, saved));
 
-        } catch (Exception e) {
+                return saved;
 
-            logger.error("Error saving signalement: {}", e.getMessage(), e);
+            });
 
-            throw new RuntimeException("Failed to save signalement: " + e.getMessage());
+            logger.info("Signalement saved with ID: {}", savedSignalement.getId());
 
-        }
+            signalementClusterIndex.apply(savedSignalement);
 
-    }
+            if (image != null) {
 
+                thumbnailGenerator.generate(image.getHash());
 
+            }
 
-    public List<SignalementDTO> getAllSignalements() {
+            return toDTO(savedSignalement, currentUser.getUsername());
 
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        } catch (Exception e) {
 
-        User currentUser = userRepository.findByUsername(username)
+            logger.error("Error saving signalement: {}", e.getMessage(), e);
 
-                .orElseThrow(() -> {
+            throw new RuntimeException("Failed to save signalement: " + e.getMessage());
 
-                    logger.error("User not found: {}", username);
+        }
 
-                    return new IllegalArgumentException("User not found");
+    }
 
-                });
 
 
+    public CursorPage<SignalementDTO> getAllSignalements(String cursor, Integer limit) {
 
         if ("ADMIN".equals(currentUser.getRole())) {
 
-            logger.warn("Admin {} attempted to access signalements", username);
+            logger.warn("Admin {} attempted to access signalements", currentUser.getUsername());
 
             throw new IllegalArgumentException("Admins cannot access signalements");
 
@@ -236,7 +346,7 @@ public class SignalementService {
 
 
 
-        List<Signalement> signalements;
+        BiFunction<PageCursor, Integer, List<SignalementSummary>> pageReader;
 
         if ("AGENT".equals(currentUser.getRole())) {
 
@@ -244,59 +354,55 @@ public class SignalementService {
 
             if (arrondissementId == null) {
 
-                logger.error("Agent {} is not associated with an arrondissement", username);
+                logger.error("Agent {} is not associated with an arrondissement", currentUser.getUsername());
 
                 throw new IllegalArgumentException("Agent must be associated with an arrondissement");
 
             }
 
-            signalements = signalementRepository.findByArrondissementId(arrondissementId);
+            pageReader = (after, size) -> findPageByArrondissementId(arrondissementId, after, size);
 
         } else {
 
-            signalements = signalementRepository.findAll();
+            pageReader = (after, size) -> after == null
 
-        }
+                    ? signalementRepository.findFirstPage(size)
 
+                    : signalementRepository.findPageAfter(after.getCreatedAt(), after.getId(), size);
 
+        }
 
-        return signalements.stream()
 
-                .map(signalement -> {
 
-                    User signalementUser = userRepository.findById(signalement.getUserId())
+        return readPage(pageReader, cursor, limit);
 
-                            .orElseThrow(() -> {
+    }
 
-                                logger.error("Signalement user not found: {}", signalement.getUserId());
 
-                                return new IllegalArgumentException("Signalement user not found");
 
-                            });
+    public List<SignalementDTO> getSignalementsByUser(String username) {
 
-                    return toDTO(signalement, signalementUser);
+        String currentUsername = currentUser.getUsername();
 
-                })
+        if ("ADMIN".equals(currentUser.getRole())) {
 
-                .collect(Collectors.toList());
+            logger.warn("Admin {} attempted to access signalements", currentUsername);
 
-    }
+            throw new IllegalArgumentException("Admins cannot access signalements");
 
+        }
 
 
-    public List<SignalementDTO> getSignalementsByUser(String username) {
 
-        String currentUsername = SecurityContextHolder.getContext().getAuthentication().getName();
+        if ("USER".equals(currentUser.getRole()) && !currentUsername.equals(username)) {
 
-        User currentUser = userRepository.findByUsername(currentUsername)
+            logger.warn("User {} attempted to access signalements of user {}", currentUsername, username);
 
-                .orElseThrow(() -> {
+            throw new IllegalArgumentException("Users can only view their own signalements");
 
-                    logger.error("Current user not found: {}", currentUsername);
+        }
 
-                    return new IllegalArgumentException("Current user not found");
 
-                });
 
         User targetUser = userRepository.findByUsername(username)
 
@@ -310,27 +416,7 @@ public class SignalementService {
 
 
 
-        if ("ADMIN".equals(currentUser.getRole())) {
-
-            logger.warn("Admin {} attempted to access signalements", currentUsername);
-
-            throw new IllegalArgumentException("Admins cannot access signalements");
-
-        }
-
-
-
-        if ("USER".equals(currentUser.getRole()) && !currentUsername.equals(username)) {
-
-            logger.warn("User {} attempted to access signalements of user {}", currentUsername, username);
-
-            throw new IllegalArgumentException("Users can only view their own signalements");
-
-        }
-
-
-
-        List<Signalement> signalements;
+        List<SignalementSummary> signalements;
 
         if ("AGENT".equals(currentUser.getRole())) {
 
@@ -344,41 +430,35 @@ public class SignalementService {
 
             }
 
-            signalements = signalementRepository.findByUserIdAndArrondissementId(targetUser.getId(), arrondissementId);
+            signalements = signalementRepository.findSummariesByUserIdAndArrondissementId(targetUser.getId(), arrondissementId);
 
         } else {
 
-            signalements = signalementRepository.findByUserId(targetUser.getId());
+            signalements = signalementRepository.findSummariesByUserId(targetUser.getId());
 
         }
 
 
 
-        return signalements.stream()
-
-                .map(signalement -> toDTO(signalement, targetUser))
-
-                .collect(Collectors.toList());
-
-    }
-
+        boolean agentView = "AGENT".equals(currentUser.getRole());
 
+        Map<Long, String> arrondissementNames = findArrondissementNames(signalements);
 
-    public List<SignalementDTO> getSignalementsByArrondissementId(Long arrondissementId) {
+        return signalements.stream()
 
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+                .map(signalement -> toDTO(signalement, targetUser,
 
-        User currentUser = userRepository.findByUsername(username)
+                        arrondissementNames.get(signalement.getArrondissementId()), agentView))
 
-                .orElseThrow(() -> {
+                .collect(Collectors.toList());
 
-                    logger.error("User not found: {}", username);
+    }
 
-                    return new IllegalArgumentException("User not found");
 
-                });
 
+    public CursorPage<SignalementDTO> getSignalementsByArrondissementId(Long arrondissementId, String cursor, Integer limit) {
 
+        String username = currentUser.getUsername();
 
         if ("ADMIN".equals(currentUser.getRole())) {
 
@@ -410,27 +490,7 @@ public class SignalementService {
 
 
 
-        List<Signalement> signalements = signalementRepository.findByArrondissementId(arrondissementId);
-
-        return signalements.stream()
-
-                .map(signalement -> {
-
-                    User signalementUser = userRepository.findById(signalement.getUserId())
-
-                            .orElseThrow(() -> {
-
-                                logger.error("Signalement user not found: {}", signalement.getUserId());
-
-                                return new IllegalArgumentException("Signalement user not found");
-
-                            });
-
-                    return toDTO(signalement, signalementUser);
-
-                })
-
-                .collect(Collectors.toList());
+        return readPage((after, size) -> findPageByArrondissementId(arrondissementId, after, size), cursor, limit);
 
     }
 
@@ -438,21 +498,9 @@ public class SignalementService {
 
     public SignalementDTO updateTraitementStatus(Long id, String traitementStatus) {
 
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-
-        User user = userRepository.findByUsername(username)
-
-                .orElseThrow(() -> {
-
-                    logger.error("User not found: {}", username);
-
-                    return new IllegalArgumentException("User not found");
+        String username = currentUser.getUsername();
 
-                });
-
-
-
-        if ("ADMIN".equals(user.getRole())) {
+        if ("ADMIN".equals(currentUser.getRole())) {
 
             logger.warn("Admin {} attempted to update signalement status", username);
 
@@ -462,9 +510,9 @@ public class SignalementService {
 
 
 
-        if (!"AGENT".equals(user.getRole())) {
+        if (!"AGENT".equals(currentUser.getRole())) {
 
-            logger.warn("User {} with role {} attempted to update signalement status", username, user.getRole());
+            logger.warn("User {} with role {} attempted to update signalement status", username, currentUser.getRole());
 
             throw new IllegalArgumentException("Only agents can update traitement status");
 
@@ -494,7 +542,7 @@ public class SignalementService {
 
 
 
-        if (!signalement.getArrondissementId().equals(user.getArrondissementId())) {
+        if (!signalement.getArrondissementId().equals(currentUser.getArrondissementId())) {
 
             logger.warn("Agent {} attempted to update signalement outside their arrondissement", username);
 
@@ -506,7 +554,21 @@ public class SignalementService {
 
         signalement.setTraitementStatus(traitementStatus);
 
-        Signalement updatedSignalement = signalementRepository.save(signalement);
+        // The author's notification and the SSE event are sent by the outbox relay
+
+        Signalement updatedSignalement = transactionTemplate.execute(status -> {
+
+            Signalement updated = signalementRepository.save(signalement);
+
+            changeLogService.recordSignalement(updated);
+
+            outboxEventRepository.save(new OutboxEvent(OutboxEvent.TRAITEMENT_STATUS_CHANGED, updated));
+
+            return updated;
+
+        });
+
+        signalementClusterIndex.apply(updatedSignalement);
 
 
 
@@ -520,71 +582,665 @@ public class SignalementService {
 
                 });
 
-        notificationService.createNotification(signalementUser.getId(), updatedSignalement.getId(),
+        return toDTO(updatedSignalement, signalementUser.getUsername());
 
-                "Signalement status updated to: " + traitementStatus);
+    }
 
 
 
-        return toDTO(updatedSignalement, signalementUser);
+    public List<SignalementDTO> getSignalementsWithin(String bbox, Double latitude, Double longitude, Double radius, int limit) {
 
-    }
+        String username = currentUser.getUsername();
+
+        if ("ADMIN".equals(currentUser.getRole())) {
 
+            logger.warn("Admin {} attempted to access signalements", username);
 
+            throw new IllegalArgumentException("Admins cannot access signalements");
 
-    private SignalementDTO toDTO(Signalement signalement, User signalementUser) {
+        }
 
-        String currentUsername = SecurityContextHolder.getContext().getAuthentication().getName();
 
-        User currentUser = userRepository.findByUsername(currentUsername)
 
-                .orElseThrow(() -> {
+        // Same scoping as the lists: agents see their arrondissement, users see every signalement
 
-                    logger.error("Current user not found: {}", currentUsername);
+        Long arrondissementId = null;
 
-                    return new IllegalArgumentException("Current user not found");
+        if ("AGENT".equals(currentUser.getRole())) {
 
-                });
+            arrondissementId = currentUser.getArrondissementId();
 
+            if (arrondissementId == null) {
 
+                logger.error("Agent {} is not associated with an arrondissement", username);
 
-        SignalementDTO dto = new SignalementDTO();
+                throw new IllegalArgumentException("Agent must be associated with an arrondissement");
 
-        dto.setId(signalement.getId());
+            }
 
-        dto.setArrondissementId(signalement.getArrondissementId());
+        }
 
-        dto.setTitle(signalement.getTitle());
 
-        dto.setDescription(signalement.getDescription());
 
-        dto.setImageBase64(signalement.getImageBase64());
+        if (limit < 1 || limit > MAX_MAP_RESULTS) {
 
-        dto.setLatitude(signalement.getLatitude());
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_MAP_RESULTS);
 
-        dto.setLongitude(signalement.getLongitude());
+        }
 
-        dto.setTraitementStatus(signalement.getTraitementStatus());
 
-        dto.setReceptionStatus(signalement.getReceptionStatus());
 
-        dto.setCreatedAt(signalement.getCreatedAt());
+        List<Long> ids;
 
+        if (bbox != null) {
 
+            if (latitude != null || longitude != null || radius != null) {
 
-        if ("AGENT".equals(currentUser.getRole())) {
+                throw new IllegalArgumentException("Use either bbox or lat, lon and radius");
 
-            dto.setUsername(signalementUser.getUsername());
+            }
+
+            ids = signalementGeoIndex.findIdsWithin(BoundingBox.parse(bbox), null, null, null, arrondissementId, limit);
+
+        } else if (latitude != null && longitude != null && radius != null) {
+
+            if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+
+                throw new IllegalArgumentException("Invalid position: " + latitude + ", " + longitude);
+
+            }
+
+            if (!(radius > 0 && radius <= MAX_RADIUS_METERS)) {
+
+                throw new IllegalArgumentException("Radius must be between 0 and " + (long) MAX_RADIUS_METERS + " meters");
+
+            }
+
+            ids = signalementGeoIndex.findIdsWithin(SignalementGeoIndex.aroundCircle(latitude, longitude, radius),
+
+                    latitude, longitude, radius, arrondissementId, limit);
+
+        } else {
+
+            throw new IllegalArgumentException("Either bbox or lat, lon and radius are required");
 
         }
 
 
 
-        // Include arrondissement name for frontend
+        if (ids.isEmpty()) {
 
-        arrondissementRepository.findById(signalement.getArrondissementId())
+            return List.of();
 
-                .ifPresent(arrondissement -> dto.setArrondissementName(arrondissement.getName()));
+        }
+
+        // Newest first, as returned by the index query
+
+        Map<Long, SignalementSummary> byId = signalementRepository.findSummariesByIdIn(ids).stream()
+
+                .collect(Collectors.toMap(SignalementSummary::getId, Function.identity()));
+
+        return toDTOs(ids.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList()));
+
+    }
+
+
+
+    public List<ClusterDTO> getClusters(String bbox, int zoom) {
+
+        String username = currentUser.getUsername();
+
+        if ("ADMIN".equals(currentUser.getRole())) {
+
+            logger.warn("Admin {} attempted to access signalements", username);
+
+            throw new IllegalArgumentException("Admins cannot access signalements");
+
+        }
+
+
+
+        Long arrondissementId = null;
+
+        if ("AGENT".equals(currentUser.getRole())) {
+
+            arrondissementId = currentUser.getArrondissementId();
+
+            if (arrondissementId == null) {
+
+                logger.error("Agent {} is not associated with an arrondissement", username);
+
+                throw new IllegalArgumentException("Agent must be associated with an arrondissement");
+
+            }
+
+        }
+
+
+
+        if (zoom < 0 || zoom > MAX_ZOOM) {
+
+            throw new IllegalArgumentException("Zoom must be between 0 and " + MAX_ZOOM);
+
+        }
+
+        return signalementClusterIndex.findClusters(BoundingBox.parse(bbox), zoom, arrondissementId);
+
+    }
+
+
+
+    // Used by the delta sync, visibility has already been checked against the change log
+
+    public List<SignalementDTO> getSignalementsByIds(Collection<Long> ids) {
+
+        return toDTOs(signalementRepository.findSummariesByIdIn(ids));
+
+    }
+
+
+
+    public Optional<SignalementImage> getSignalementImage(Long id, Integer size) {
+
+        if (size != null && !thumbnailGenerator.isSupportedSize(size)) {
+
+            throw new IllegalArgumentException("Unsupported image size: " + size);
+
+        }
+
+        String username = currentUser.getUsername();
+
+        if ("ADMIN".equals(currentUser.getRole())) {
+
+            logger.warn("Admin {} attempted to access signalements", username);
+
+            throw new IllegalArgumentException("Admins cannot access signalements");
+
+        }
+
+
+
+        Signalement signalement = signalementRepository.findById(id)
+
+                .orElseThrow(() -> {
+
+                    logger.error("Signalement not found with ID: {}", id);
+
+                    return new IllegalArgumentException("Signalement not found");
+
+                });
+
+
+
+        if ("AGENT".equals(currentUser.getRole()) && !signalement.getArrondissementId().equals(currentUser.getArrondissementId())) {
+
+            logger.warn("Agent {} attempted to access signalement {} outside their arrondissement", username, id);
+
+            throw new IllegalArgumentException("Agent can only access signalements in their arrondissement");
+
+        }
+
+
+
+        if (signalement.getImageHash() != null) {
+
+            if (size != null) {
+
+                Optional<Path> variant = blobStore.findVariant(signalement.getImageHash(), size);
+
+                if (variant.isPresent()) {
+
+                    return Optional.of(SignalementImage.ofFile(variant.get(), "image/jpeg"));
+
+                }
+
+                // Not generated (yet) or the original is already smaller than the requested size
+
+            }
+
+            // Rows stored before uploads were restricted may carry a client-supplied type
+
+            if (!ImageTypes.isSupported(signalement.getImageContentType())) {
+
+                logger.warn("Not serving image of signalement {} with type {}", id, signalement.getImageContentType());
+
+                return Optional.empty();
+
+            }
+
+            return blobStore.find(signalement.getImageHash())
+
+                    .map(file -> SignalementImage.ofFile(file, signalement.getImageContentType()));
+
+        }
+
+
+
+        // Rows created before the blob store keep their photo in image_base64
+
+        String base64Image = signalement.getImageBase64();
+
+        if (base64Image == null || base64Image.isEmpty()) {
+
+            return Optional.empty();
+
+        }
+
+        // The type comes from the bytes, never from the stored data URI
+
+        Matcher prefix = DATA_URI_PREFIX.matcher(base64Image);
+
+        byte[] data = Base64.getDecoder().decode(prefix.lookingAt() ? base64Image.substring(prefix.end()) : base64Image);
+
+        String contentType = ImageTypes.sniff(data);
+
+        if (!ImageTypes.isSupported(contentType)) {
+
+            logger.warn("Not serving legacy image of signalement {}: unsupported format", id);
+
+            return Optional.empty();
+
+        }
+
+        return Optional.of(SignalementImage.ofBytes(data, contentType));
+
+    }
+
+
+
+    // The position picks the arrondissement when none is given, and must lie inside the one given
+
+    private Long resolveArrondissementId(SignalementDTO signalementDTO) {
+
+        Long arrondissementId = signalementDTO.getArrondissementId();
+
+        Double latitude = signalementDTO.getLatitude();
+
+        Double longitude = signalementDTO.getLongitude();
+
+        if (latitude != null && longitude != null) {
+
+            if (arrondissementId == null) {
+
+                return arrondissementIndex.locate(latitude, longitude)
+
+                        .orElseThrow(() -> {
+
+                            logger.error("No arrondissement contains position {}, {}", latitude, longitude);
+
+                            return new IllegalArgumentException("No active arrondissement contains the given position");
+
+                        });
+
+            }
+
+            if (arrondissementIndex.isIndexed(arrondissementId)) {
+
+                if (!arrondissementIndex.contains(arrondissementId, latitude, longitude)) {
+
+                    logger.error("Position {}, {} is outside arrondissement {}", latitude, longitude, arrondissementId);
+
+                    throw new IllegalArgumentException("Position is outside arrondissement with ID: " + arrondissementId);
+
+                }
+
+                return arrondissementId;
+
+            }
+
+        }
+
+        // Without a position, or for an arrondissement without a usable boundary
+
+        if (arrondissementId == null) {
+
+            throw new IllegalArgumentException("Arrondissement ID or position is required");
+
+        }
+
+        if (!arrondissementRepository.existsById(arrondissementId)) {
+
+            logger.error("Arrondissement not found with ID: {}", arrondissementId);
+
+            throw new IllegalArgumentException("Arrondissement not found with ID: " + arrondissementId);
+
+        }
+
+        return arrondissementId;
+
+    }
+
+
+
+    // Decodes the Base64 image once, if provided, and keeps only its raw bytes in the blob store
+
+    private StoredBlob storeBase64Image(String base64Image) {
+
+        if (base64Image == null || base64Image.isEmpty()) {
+
+            logger.debug("No image provided for signalement");
+
+            return null;
+
+        }
+
+        // Reject oversized payloads before allocating the decoded copy
+
+        if (base64Image.length() / 4 * 3 > blobStore.getMaxSize() + 3 + DATA_URI_MAX_LENGTH) {
+
+            throw new IllegalArgumentException("Image exceeds the maximum size of " + blobStore.getMaxSize() + " bytes");
+
+        }
+
+        // Skip MIME prefix if present, the stored type is sniffed from the bytes
+
+        Matcher prefix = DATA_URI_PREFIX.matcher(base64Image);
+
+        boolean hasPrefix = prefix.lookingAt();
+
+        if (hasPrefix && !ImageTypes.isSupported(prefix.group(1))) {
+
+            logger.error("Unsupported image type: {}", prefix.group(1));
+
+            throw new IllegalArgumentException("Unsupported image format, expected JPEG, PNG, GIF or WebP");
+
+        }
+
+        byte[] decoded;
+
+        try {
+
+            decoded = Base64.getDecoder().decode(hasPrefix ? base64Image.substring(prefix.end()) : base64Image);
+
+        } catch (IllegalArgumentException e) {
+
+            logger.error("Invalid Base64 format: {}", e.getMessage());
+
+            throw new IllegalArgumentException("Invalid Base64 image format: " + e.getMessage());
+
+        }
+
+        return storeImage(new ByteArrayInputStream(decoded));
+
+    }
+
+
+
+    // The blob store only accepts the formats it can sniff, the client's type is never kept
+
+    private StoredBlob storeImage(InputStream in) {
+
+        try {
+
+            StoredBlob image = blobStore.store(in);
+
+            logger.debug("Image stored as {} ({} bytes)", image.getHash(), image.getSize());
+
+            return image;
+
+        } catch (IOException e) {
+
+            logger.error("Error storing image: {}", e.getMessage(), e);
+
+            throw new UncheckedIOException("Failed to store image", e);
+
+        }
+
+    }
+
+
+
+    private List<SignalementSummary> findPageByArrondissementId(Long arrondissementId, PageCursor after, int limit) {
+
+        return after == null
+
+                ? signalementRepository.findFirstPageByArrondissementId(arrondissementId, limit)
+
+                : signalementRepository.findPageByArrondissementIdAfter(arrondissementId,
+
+                        after.getCreatedAt(), after.getId(), limit);
+
+    }
+
+
+
+    // Requests with neither a cursor nor a limit predate paging and still get the whole list,
+
+    // read in seek pages so no single query or id lookup grows with the table
+
+    private CursorPage<SignalementDTO> readPage(BiFunction<PageCursor, Integer, List<SignalementSummary>> pageReader,
+
+                                                String cursor, Integer limit) {
+
+        if (cursor == null && limit == null) {
+
+            List<SignalementDTO> all = new ArrayList<>();
+
+            PageCursor after = null;
+
+            List<SignalementSummary> rows;
+
+            do {
+
+                rows = pageReader.apply(after, MAX_PAGE_SIZE);
+
+                all.addAll(toDTOs(rows));
+
+                if (!rows.isEmpty()) {
+
+                    SignalementSummary last = rows.get(rows.size() - 1);
+
+                    after = new PageCursor(last.getCreatedAt(), last.getId());
+
+                }
+
+            } while (rows.size() == MAX_PAGE_SIZE);
+
+            return new CursorPage<>(all, null);
+
+        }
+
+
+
+        int pageSize = validatePageSize(limit != null ? limit : DEFAULT_PAGE_SIZE);
+
+        PageCursor after = cursor != null ? PageCursor.decode(cursor) : null;
+
+        return toPage(pageReader.apply(after, pageSize + 1), pageSize);
+
+    }
+
+
+
+    private int validatePageSize(int limit) {
+
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+
+        }
+
+        return limit;
+
+    }
+
+
+
+    // Rows are fetched with one extra element so we know whether a next page exists
+
+    private CursorPage<SignalementDTO> toPage(List<SignalementSummary> rows, int pageSize) {
+
+        if (rows.size() <= pageSize) {
+
+            return new CursorPage<>(toDTOs(rows), null);
+
+        }
+
+        List<SignalementSummary> page = rows.subList(0, pageSize);
+
+        SignalementSummary last = page.get(pageSize - 1);
+
+        return new CursorPage<>(toDTOs(page), new PageCursor(last.getCreatedAt(), last.getId()).encode());
+
+    }
+
+
+
+    /**
+
+     * Builds the DTOs for a whole list of signalements with one query for the authors and one
+
+     * for the arrondissement names, instead of two lookups per row.
+
+     */
+
+    private List<SignalementDTO> toDTOs(List<SignalementSummary> signalements) {
+
+        Set<Long> userIds = signalements.stream()
+
+                .map(SignalementSummary::getUserId)
+
+                .collect(Collectors.toSet());
+
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        Map<Long, String> arrondissementNames = findArrondissementNames(signalements);
+
+        boolean agentView = "AGENT".equals(currentUser.getRole());
+
+
+
+        return signalements.stream()
+
+                .map(signalement -> {
+
+                    User signalementUser = users.get(signalement.getUserId());
+
+                    if (signalementUser == null) {
+
+                        logger.error("Signalement user not found: {}", signalement.getUserId());
+
+                        throw new IllegalArgumentException("Signalement user not found");
+
+                    }
+
+                    return toDTO(signalement, signalementUser,
+
+                            arrondissementNames.get(signalement.getArrondissementId()), agentView);
+
+                })
+
+                .collect(Collectors.toList());
+
+    }
+
+
+
+    private Map<Long, String> findArrondissementNames(List<SignalementSummary> signalements) {
+
+        Set<Long> arrondissementIds = signalements.stream()
+
+                .map(SignalementSummary::getArrondissementId)
+
+                .collect(Collectors.toSet());
+
+        return arrondissementRepository.findAllById(arrondissementIds).stream()
+
+                .collect(Collectors.toMap(Arrondissement::getId, Arrondissement::getName));
+
+    }
+
+
+
+    private SignalementDTO toDTO(Signalement signalement, String signalementUsername) {
+
+        SignalementDTO dto = new SignalementDTO();
+
+        dto.setId(signalement.getId());
+
+        dto.setArrondissementId(signalement.getArrondissementId());
+
+        dto.setTitle(signalement.getTitle());
+
+        dto.setDescription(signalement.getDescription());
+
+        dto.setHasImage(signalement.getImageHash() != null || signalement.getImageBase64() != null);
+
+        dto.setLatitude(signalement.getLatitude());
+
+        dto.setLongitude(signalement.getLongitude());
+
+        dto.setTraitementStatus(signalement.getTraitementStatus());
+
+        dto.setReceptionStatus(signalement.getReceptionStatus());
+
+        dto.setCreatedAt(signalement.getCreatedAt());
+
+
+
+        if ("AGENT".equals(currentUser.getRole())) {
+
+            dto.setUsername(signalementUsername);
+
+        }
+
+
+
+        // Include arrondissement name for frontend
+
+        arrondissementRepository.findById(signalement.getArrondissementId())
+
+                .ifPresent(arrondissement -> dto.setArrondissementName(arrondissement.getName()));
+
+
+
+        return dto;
+
+    }
+
+
+
+    private SignalementDTO toDTO(SignalementSummary signalement, User signalementUser, String arrondissementName,
+
+                                 boolean agentView) {
+
+        SignalementDTO dto = new SignalementDTO();
+
+        dto.setId(signalement.getId());
+
+        dto.setArrondissementId(signalement.getArrondissementId());
+
+        dto.setTitle(signalement.getTitle());
+
+        dto.setDescription(signalement.getDescription());
+
+        // The image itself is served by GET /api/signalements/{id}/image
+
+        dto.setHasImage(signalement.getHasImage());
+
+        dto.setLatitude(signalement.getLatitude());
+
+        dto.setLongitude(signalement.getLongitude());
+
+        dto.setTraitementStatus(signalement.getTraitementStatus());
+
+        dto.setReceptionStatus(signalement.getReceptionStatus());
+
+        dto.setCreatedAt(signalement.getCreatedAt());
+
+
+
+        if (agentView) {
+
+            dto.setUsername(signalementUser.getUsername());
+
+        }
+
+
+
+        dto.setArrondissementName(arrondissementName);
 
 
 
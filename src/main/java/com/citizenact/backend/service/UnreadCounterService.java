@@ -0,0 +1,114 @@
+package com.citizenact.backend.service;
+
+import com.citizenact.backend.repository.NotificationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user unread notification counts. A count is loaded from one aggregate query the first
+ * time it is asked for, then kept current by the notification writes of this instance. Writes
+ * made by other instances, by the outbox relay or by the retention job do not reach this cache,
+ * so a count is reloaded once it is {@code ttl-seconds} old.
+ *
+ * <p>Writers and loaders of the same user meet on one of {@link #STRIPES} locks. A load runs
+ * its query outside the lock and only caches the result if no write hit the stripe meanwhile,
+ * so a write committed during the query is never counted twice. Each stripe keeps its share of
+ * the cached users in access order and drops the least recently used one when it is full.
+ */
+@Service
+public class UnreadCounterService {
+
+    private static final int STRIPES = 64;
+    private static final int MAX_CACHED_USERS = 100_000;
+
+    private final NotificationRepository notificationRepository;
+    private final Object[] locks = new Object[STRIPES];
+    private final long[] versions = new long[STRIPES]; // Guarded by locks[i]
+    private final Map<Long, Count>[] counts = newStripes(MAX_CACHED_USERS / STRIPES); // Guarded by locks[i]
+    private final long ttlNanos;
+
+    public UnreadCounterService(NotificationRepository notificationRepository,
+                                @Value("${citizenact.notifications.unread-count.ttl-seconds:30}") long ttlSeconds) {
+        this.notificationRepository = notificationRepository;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public long getUnreadCount(Long userId) {
+        int stripe = stripe(userId);
+        long version;
+        synchronized (locks[stripe]) {
+            Count count = counts[stripe].get(userId);
+            if (count != null) {
+                if (count.expiresAt - System.nanoTime() > 0) {
+                    return count.value;
+                }
+                counts[stripe].remove(userId);
+            }
+            version = versions[stripe];
+        }
+        long loaded = notificationRepository.countUnreadByUserId(userId);
+        synchronized (locks[stripe]) {
+            if (versions[stripe] == version) {
+                counts[stripe].putIfAbsent(userId, new Count(loaded, System.nanoTime() + ttlNanos));
+            }
+        }
+        return loaded;
+    }
+
+    // Called after the write that changed the count has committed
+    public void adjust(Long userId, long delta) {
+        int stripe = stripe(userId);
+        synchronized (locks[stripe]) {
+            Count count = counts[stripe].get(userId);
+            if (count != null) {
+                count.value = Math.max(0, count.value + delta);
+            }
+            versions[stripe]++;
+        }
+    }
+
+    // For writes whose effect on the count is not known
+    public void invalidate(Long userId) {
+        int stripe = stripe(userId);
+        synchronized (locks[stripe]) {
+            counts[stripe].remove(userId);
+            versions[stripe]++;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Long, Count>[] newStripes(int maxPerStripe) {
+        Map<Long, Count>[] stripes = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Count> eldest) {
+                    return size() > maxPerStripe;
+                }
+            };
+        }
+        return stripes;
+    }
+
+    private static int stripe(Long userId) {
+        return Long.hashCode(userId) & (STRIPES - 1);
+    }
+
+    // Guarded by the lock of the user's stripe
+    private static final class Count {
+        private long value;
+        private final long expiresAt;
+
+        private Count(long value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.citizenact.backend.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed image store on the local filesystem. Files are named after the
+ * SHA-256 of their bytes (images/ab/cd/abcd...), so identical uploads are stored once
+ * and a stored file never changes. Its modification time is the last upload of those bytes,
+ * which keeps a blob being referenced again out of the orphan sweep.
+ */
+@Component
+public class BlobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlobStore.class);
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+    private static final int BUFFER_SIZE = 8192;
+
+    @FunctionalInterface
+    public interface VariantWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private final Path root;
+    private final Path tmpDir;
+    private final Path variantDir;
+    private final long maxSize;
+
+    public BlobStore(@Value("${citizenact.storage.image-dir:data/images}") String imageDir,
+                     @Value("${citizenact.storage.max-image-size:10485760}") long maxSize) {
+        this.root = Paths.get(imageDir).toAbsolutePath().normalize();
+        this.tmpDir = root.resolve("tmp");
+        this.variantDir = root.resolve("variants");
+        this.maxSize = maxSize;
+        try {
+            Files.createDirectories(tmpDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create image directory " + root, e);
+        }
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Copies the stream to disk through a fixed-size buffer, hashing it on the way.
+     * Fails as soon as more than {@code max-image-size} bytes have been read, or as soon as
+     * the first bytes are not those of a supported image format.
+     */
+    public StoredBlob store(InputStream in) throws IOException {
+        MessageDigest digest = sha256();
+        Path tmp = Files.createTempFile(tmpDir, "upload-", ".part");
+        byte[] buffer = new byte[BUFFER_SIZE];
+        byte[] header = new byte[ImageTypes.HEADER_SIZE];
+        long size = 0;
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    if (size < header.length) {
+                        System.arraycopy(buffer, 0, header, (int) size, (int) Math.min(read, header.length - size));
+                        if (size + read >= header.length) {
+                            checkFormat(header);
+                        }
+                    }
+                    size += read;
+                    if (size > maxSize) {
+                        throw new IllegalArgumentException("Image exceeds the maximum size of " + maxSize + " bytes");
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+            if (size == 0) {
+                throw new IllegalArgumentException("Image is empty");
+            }
+            if (size < header.length) {
+                checkFormat(header);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = pathOf(hash);
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Same content already stored, possibly unreferenced and due for the sweep
+                logger.debug("Image {} already stored", hash);
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            }
+            return new StoredBlob(hash, size, ImageTypes.sniff(header));
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Writes a derived image (thumbnail) of a stored blob. The writer fills a temporary
+     * file which is then moved in place, so readers never see a partial variant.
+     */
+    public void storeVariant(String hash, int size, VariantWriter writer) throws IOException {
+        Path tmp = Files.createTempFile(tmpDir, "variant-", ".part");
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                writer.write(out);
+            }
+            Path target = variantPathOf(hash, size);
+            Files.createDirectories(target.getParent());
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    public Optional<Path> findVariant(String hash, int size) {
+        if (hash == null || !SHA256_HEX.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        Path path = variantPathOf(hash, size);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    public Optional<Path> find(String hash) {
+        if (hash == null || !SHA256_HEX.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        Path path = pathOf(hash);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    /**
+     * Hashes of the blobs last uploaded before {@code cutoff}. The directory tree is walked
+     * lazily; the stream must be closed.
+     */
+    public Stream<String> findHashesOlderThan(Instant cutoff) throws IOException {
+        return Files.walk(root, 3)
+                .filter(path -> SHA256_HEX.matcher(path.getFileName().toString()).matches())
+                .filter(path -> isOlderThan(path, cutoff))
+                .map(path -> path.getFileName().toString());
+    }
+
+    /**
+     * Deletes a blob and its variants, unless it was uploaded again since {@code cutoff}.
+     * Returns whether it was deleted.
+     */
+    public boolean deleteIfOlderThan(String hash, Instant cutoff) throws IOException {
+        Path path = pathOf(hash);
+        if (!isOlderThan(path, cutoff) || !Files.deleteIfExists(path)) {
+            return false;
+        }
+        Path variants = variantDir.resolve(hash.substring(0, 2));
+        if (Files.isDirectory(variants)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(variants, hash + "-*")) {
+                for (Path variant : stream) {
+                    Files.deleteIfExists(variant);
+                }
+            }
+        }
+        return true;
+    }
+
+    // Missing or unreadable files are left alone
+    private static boolean isOlderThan(Path path, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Anything else (HTML, SVG...) would be served back with a scriptable type
+    private static void checkFormat(byte[] header) {
+        if (!ImageTypes.isSupported(ImageTypes.sniff(header))) {
+            throw new IllegalArgumentException("Unsupported image format, expected JPEG, PNG, GIF or WebP");
+        }
+    }
+
+    private Path pathOf(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private Path variantPathOf(String hash, int size) {
+        return variantDir.resolve(hash.substring(0, 2)).resolve(hash + "-" + size + ".jpg");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
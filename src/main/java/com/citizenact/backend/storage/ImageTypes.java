@@ -0,0 +1,42 @@
+package com.citizenact.backend.storage;
+
+import java.util.Map;
+
+/**
+ * Detects the image format from the first bytes of the file. Only the formats below are
+ * accepted and served, whatever type the client announces.
+ */
+public final class ImageTypes {
+
+    public static final int HEADER_SIZE = 12;
+    public static final String OCTET_STREAM = "application/octet-stream";
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/jpeg", "jpg", "image/png", "png", "image/gif", "gif", "image/webp", "webp");
+
+    private ImageTypes() {
+    }
+
+    public static String sniff(byte[] data) {
+        if (data.length >= 3 && (data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == 0xD8 && (data[2] & 0xFF) == 0xFF) {
+            return "image/jpeg";
+        }
+        if (data.length >= 8 && (data[0] & 0xFF) == 0x89 && data[1] == 'P' && data[2] == 'N' && data[3] == 'G') {
+            return "image/png";
+        }
+        if (data.length >= 6 && data[0] == 'G' && data[1] == 'I' && data[2] == 'F') {
+            return "image/gif";
+        }
+        if (data.length >= 12 && data[0] == 'R' && data[1] == 'I' && data[8] == 'W' && data[9] == 'E') {
+            return "image/webp";
+        }
+        return OCTET_STREAM;
+    }
+
+    public static boolean isSupported(String contentType) {
+        return contentType != null && EXTENSIONS.containsKey(contentType);
+    }
+
+    public static String extension(String contentType) {
+        return EXTENSIONS.get(contentType);
+    }
+}